@@ -0,0 +1,107 @@
+package com.example.servicechat.classification;
+
+import com.example.servicechat.model.NormalizedQuery;
+import com.example.servicechat.service.QuerySpellCorrector;
+import com.example.servicechat.utility.Lexicon;
+import com.example.servicechat.utility.QueryNormalizer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.lang.invoke.MethodHandles;
+import java.util.*;
+
+/**
+ * Hash lookup of the normalized training phrases. Canned queries such as "download postman collection" are
+ * answered from here without running a model. Phrases are read through {@link TrainingCorpus}, which drops rows
+ * with undeclared intents, so every phrase maps to an intent the model knows. They are keyed by the same
+ * tokenization and spelling correction a query goes through, so the index is rebuilt when the {@link Lexicon}
+ * reloads, after the spelling index.
+ */
+@Component
+public class ExactPhraseIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    @Autowired
+    private QueryNormalizer queryNormalizer;
+    @Autowired
+    private QuerySpellCorrector corrector;
+
+    private volatile Map<String, String> phrases = Map.of();
+    private final Set<String> ambiguous = new HashSet<>();
+    /** Phrases learned at runtime as {text, intent}, replayed when the index is rebuilt. */
+    private final List<String[]> learned = new ArrayList<>();
+
+    @PostConstruct
+    public void init() throws Exception {
+        build();
+    }
+
+    @EventListener
+    public void onLexiconReloaded(Lexicon.ReloadedEvent event) throws Exception {
+        build();
+    }
+
+    private synchronized void build() throws Exception {
+        ambiguous.clear();
+        Map<String, String> index = new HashMap<>();
+        Instances training = TrainingCorpus.fromClasspath().toInstances();
+        for (Instance row : training) {
+            if (!row.classIsMissing()) {
+                add(index, row.stringValue(0), row.stringValue(training.classIndex()));
+            }
+        }
+        for (String[] phrase : learned) {
+            add(index, phrase[0], phrase[1]);
+        }
+        ambiguous.forEach(index::remove);
+        phrases = Map.copyOf(index);
+        LOGGER.info("Indexed {} exact training phrases ({} ambiguous skipped)", phrases.size(), ambiguous.size());
+    }
+
+    /**
+     * Adds a phrase learned at runtime. A phrase already indexed under another intent becomes ambiguous and
+     * is dropped, so a correction is left to the model instead of being shadowed by the old answer.
+     */
+    public synchronized void learn(String text, String intent) {
+        learned.add(new String[]{text, intent});
+        Map<String, String> index = new HashMap<>(phrases);
+        add(index, text, intent);
+        ambiguous.forEach(index::remove);
+        phrases = Map.copyOf(index);
+    }
+
+    private void add(Map<String, String> index, String text, String intent) {
+        String phrase = key(text);
+        if (phrase.isEmpty()) {
+            return;
+        }
+        if (ambiguous.contains(phrase)) {
+            return;
+        }
+        String previous = index.putIfAbsent(phrase, intent);
+        if (previous != null && !previous.equals(intent)) {
+            ambiguous.add(phrase);
+        }
+    }
+
+    /**
+     * Returns the intent of a training phrase equal to an already normalized query, if any. Phrases are keyed
+     * by the same normalization, so the query's text is directly a phrase key.
+     */
+    public Optional<String> lookup(NormalizedQuery query) {
+        return Optional.ofNullable(phrases.get(query.getText()));
+    }
+
+    /** Tokenizes and spell-corrects {@code text} as a query is, and joins the tokens by single spaces. */
+    private String key(String text) {
+        String[] tokens = queryNormalizer.tokenize(text);
+        corrector.correct(tokens);
+        return new NormalizedQuery(tokens).getText();
+    }
+}
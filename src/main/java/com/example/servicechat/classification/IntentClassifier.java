@@ -0,0 +1,48 @@
+package com.example.servicechat.classification;
+
+import com.example.servicechat.model.IntentScore;
+
+import java.util.List;
+
+/**
+ * A backend that maps a normalized user query to an intent label. Implementations must be safe to call
+ * from many request threads at once.
+ */
+public interface IntentClassifier {
+
+    /** Name used to select this backend in configuration, e.g. {@code weka} or {@code corenlp}. */
+    String name();
+
+    /** Whether the backend has a model loaded. Backends that load in the background start out not ready. */
+    default boolean isReady() {
+        return true;
+    }
+
+    /**
+     * Identifies the model currently answering; changes whenever the backend starts answering differently
+     * (retraining, online learning), so results cached under an older version are not reused.
+     */
+    default long modelVersion() {
+        return 0;
+    }
+
+    /**
+     * Returns at most {@code limit} intents with their probabilities, best first. The list is empty when the
+     * backend cannot classify the query.
+     */
+    List<IntentScore> rank(String query, int limit);
+
+    /**
+     * Same as {@link #rank(String, int)} for a query that is already normalized into tokens. Backends that
+     * tokenize on their own can override this to skip re-splitting the text.
+     */
+    default List<IntentScore> rank(String[] tokens, int limit) {
+        return rank(String.join(" ", tokens), limit);
+    }
+
+    /** Returns the predicted intent, or {@code null} when the backend cannot classify the query. */
+    default String classify(String query) {
+        List<IntentScore> ranked = rank(query, 1);
+        return ranked.isEmpty() ? null : ranked.get(0).getIntent();
+    }
+}
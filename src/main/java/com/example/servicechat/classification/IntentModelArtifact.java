@@ -0,0 +1,200 @@
+package com.example.servicechat.classification;
+
+import weka.core.Attribute;
+import weka.core.Instances;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Versioned binary form of a compiled intent model: the vectorizer vocabulary and settings followed by the
+ * {@link NaiveBayesScorer} tables. The file is produced at build time by {@link IntentModelCompiler} and
+ * memory-mapped at startup; the score tables are used in place as views of the mapping, so loading costs
+ * no training and JVMs on the same host share the pages through the OS page cache.
+ * <p>
+ * Layout (big-endian): magic, format version, training fingerprint, attribute names, class labels, vectorizer
+ * flags, padding to a 4-byte boundary, then the float tables.
+ */
+public final class IntentModelArtifact {
+
+    public static final String FILE_NAME = "intent-model.nbm";
+
+    private static final int MAGIC = 0x53434e42; // "SCNB"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int OUTPUT_WORD_COUNTS = 1;
+    private static final int TF_TRANSFORM = 1 << 1;
+    private static final int LOWER_CASE_TOKENS = 1 << 2;
+    private static final int IDF_TRANSFORM = 1 << 3;
+
+    private final String fingerprint;
+    private final QueryVectorizer vectorizer;
+    private final NaiveBayesScorer scorer;
+
+    private IntentModelArtifact(String fingerprint, QueryVectorizer vectorizer, NaiveBayesScorer scorer) {
+        this.fingerprint = fingerprint;
+        this.vectorizer = vectorizer;
+        this.scorer = scorer;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    QueryVectorizer getVectorizer() {
+        return vectorizer;
+    }
+
+    NaiveBayesScorer getScorer() {
+        return scorer;
+    }
+
+    /** Writes the model to {@code target} through a temporary file, so readers never see a partial file. */
+    static void write(Path target, String fingerprint, QueryVectorizer vectorizer, NaiveBayesScorer scorer)
+            throws IOException {
+        Instances header = vectorizer.getHeader();
+        double[] idf = vectorizer.idf();
+        int flags = (vectorizer.outputWordCounts() ? OUTPUT_WORD_COUNTS : 0)
+                | (vectorizer.tfTransform() ? TF_TRANSFORM : 0)
+                | (vectorizer.lowerCaseTokens() ? LOWER_CASE_TOKENS : 0)
+                | (idf != null ? IDF_TRANSFORM : 0);
+
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path partial = Files.createTempFile(directory, target.getFileName().toString(), ".partial");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(partial)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                writeString(out, fingerprint);
+                out.writeInt(header.numAttributes());
+                out.writeInt(header.classIndex());
+                for (int i = 0; i < header.numAttributes(); i++) {
+                    writeString(out, header.attribute(i).name());
+                }
+                String[] classLabels = scorer.classLabels();
+                out.writeInt(classLabels.length);
+                for (String label : classLabels) {
+                    writeString(out, label);
+                }
+                out.writeInt(flags);
+                while (out.size() % Float.BYTES != 0) {
+                    out.writeByte(0);
+                }
+                if (idf != null) {
+                    for (double value : idf) {
+                        out.writeFloat((float) value);
+                    }
+                }
+                for (FloatBuffer table : scorer.tables()) {
+                    for (int i = 0; i < table.limit(); i++) {
+                        out.writeFloat(table.get(i));
+                    }
+                }
+            }
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    /** Memory-maps a compiled model. The mapping stays valid after the channel is closed. */
+    public static IntentModelArtifact map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(buffer);
+        }
+    }
+
+    static IntentModelArtifact read(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not an intent model artifact");
+        }
+        int version = buffer.getInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported intent model format version " + version);
+        }
+        String fingerprint = readString(buffer);
+        int numAttributes = buffer.getInt();
+        int classIndex = buffer.getInt();
+        String[] attributeNames = new String[numAttributes];
+        for (int i = 0; i < numAttributes; i++) {
+            attributeNames[i] = readString(buffer);
+        }
+        String[] classLabels = new String[buffer.getInt()];
+        for (int c = 0; c < classLabels.length; c++) {
+            classLabels[c] = readString(buffer);
+        }
+        int flags = buffer.getInt();
+        while (buffer.position() % Float.BYTES != 0) {
+            buffer.get();
+        }
+
+        ArrayList<Attribute> attributes = new ArrayList<>(numAttributes);
+        for (int i = 0; i < numAttributes; i++) {
+            attributes.add(i == classIndex
+                    ? new Attribute(attributeNames[i], List.of(classLabels))
+                    : new Attribute(attributeNames[i]));
+        }
+        Instances header = new Instances("intents", attributes, 0);
+        header.setClassIndex(classIndex);
+
+        double[] idf = null;
+        if ((flags & IDF_TRANSFORM) != 0) {
+            FloatBuffer stored = table(buffer, numAttributes);
+            idf = new double[numAttributes];
+            for (int i = 0; i < numAttributes; i++) {
+                idf[i] = stored.get(i);
+            }
+        }
+        QueryVectorizer vectorizer = QueryVectorizer.restore(header, idf,
+                (flags & OUTPUT_WORD_COUNTS) != 0, (flags & TF_TRANSFORM) != 0, (flags & LOWER_CASE_TOKENS) != 0);
+
+        int numClasses = classLabels.length;
+        int cells = numAttributes * numClasses;
+        NaiveBayesScorer scorer = new NaiveBayesScorer(classLabels,
+                table(buffer, numClasses), table(buffer, numClasses),
+                table(buffer, cells), table(buffer, cells), table(buffer, cells),
+                table(buffer, numAttributes));
+        return new IntentModelArtifact(fingerprint, vectorizer, scorer);
+    }
+
+    private static FloatBuffer table(ByteBuffer buffer, int length) throws IOException {
+        int bytes = length * Float.BYTES;
+        if (buffer.remaining() < bytes) {
+            throw new IOException("Truncated intent model artifact");
+        }
+        FloatBuffer table = buffer.slice(buffer.position(), bytes).asFloatBuffer();
+        buffer.position(buffer.position() + bytes);
+        return table;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return "IntentModelArtifact[fingerprint=" + fingerprint + ", classes="
+                + Arrays.toString(scorer.classLabels()) + ", terms=" + vectorizer.getTerms().size() + "]";
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.servicechat.classification;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Path;
+
+/**
+ * Build-time entry point that trains the intent model from the training files in a resource directory and
+ * writes it as an {@link IntentModelArtifact}. Run by the {@code compile-intent-model} Maven profile:
+ * <pre>
+ *   IntentModelCompiler &lt;training-data-dir&gt; &lt;output-file&gt;
+ * </pre>
+ */
+public final class IntentModelCompiler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private IntentModelCompiler() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: IntentModelCompiler <training-data-dir> <output-file>");
+        }
+        TrainingCorpus corpus = TrainingCorpus.fromDirectory(Path.of(args[0]));
+        IntentModelSnapshot model = new QueryClassifier().train(corpus, 0);
+
+        Path output = Path.of(args[1]);
+        IntentModelArtifact.write(output, corpus.fingerprint(), model.getVectorizer(), model.getScorer());
+        LOGGER.info("Compiled intent model ({} terms, fingerprint {}) -> {}",
+                model.getVocabulary().size(), corpus.fingerprint(), output);
+    }
+}
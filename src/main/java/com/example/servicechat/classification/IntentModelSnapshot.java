@@ -0,0 +1,54 @@
+package com.example.servicechat.classification;
+
+import weka.classifiers.Classifier;
+import weka.core.Instances;
+
+import java.util.Set;
+
+/**
+ * Immutable, fully trained view of the intent model. A snapshot is built once and then shared
+ * read-only by every request thread; retraining builds a new snapshot instead of mutating this one.
+ */
+public final class IntentModelSnapshot {
+
+    private final long version;
+    private final Classifier classifier;
+    private final QueryVectorizer vectorizer;
+    private final NaiveBayesScorer scorer;
+
+    IntentModelSnapshot(long version, Classifier classifier, QueryVectorizer vectorizer, NaiveBayesScorer scorer) {
+        this.version = version;
+        this.classifier = classifier;
+        this.vectorizer = vectorizer;
+        this.scorer = scorer;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * The Weka model the scorer was exported from; kept for parity checks, not used on the request path.
+     * {@code null} when the snapshot was loaded from a compiled {@link IntentModelArtifact}.
+     */
+    Classifier getClassifier() {
+        return classifier;
+    }
+
+    QueryVectorizer getVectorizer() {
+        return vectorizer;
+    }
+
+    NaiveBayesScorer getScorer() {
+        return scorer;
+    }
+
+    /** Empty header of the word-vector space the classifier was trained on. */
+    Instances getFilteredHeader() {
+        return vectorizer.getHeader();
+    }
+
+    public Set<String> getVocabulary() {
+        return vectorizer.getTerms();
+    }
+}
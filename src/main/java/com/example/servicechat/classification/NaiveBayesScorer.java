@@ -0,0 +1,196 @@
+package com.example.servicechat.classification;
+
+import weka.classifiers.bayes.NaiveBayes;
+import weka.core.Attribute;
+import weka.core.Instances;
+import weka.core.Statistics;
+import weka.estimators.DiscreteEstimator;
+import weka.estimators.Estimator;
+import weka.estimators.NormalEstimator;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Allocation-free scorer for a trained Weka {@link NaiveBayes} over word-count vectors.
+ * <p>
+ * The per-term Gaussian estimators are exported into flat float tables laid out term-major
+ * ({@code termId * numClasses + classId}). Because a query only has a handful of non-zero terms, each class
+ * score starts from a precomputed "every term is zero" baseline and is corrected for the non-zero terms only,
+ * so scoring costs O(query terms x classes) instead of O(vocabulary x classes). The arithmetic mirrors
+ * {@link NaiveBayes#distributionForInstance} and {@link NormalEstimator#getProbability}, so the predicted
+ * labels match Weka's.
+ * <p>
+ * Tables are {@link FloatBuffer}s so they can live on the heap (freshly trained model) or in a memory-mapped
+ * {@link IntentModelArtifact}; absolute {@code get} calls allocate nothing in either case.
+ */
+public final class NaiveBayesScorer {
+
+    /** Floor Weka applies to every per-attribute likelihood. */
+    private static final double MIN_PROBABILITY = 1e-75;
+
+    private final String[] classLabels;
+    private final int numClasses;
+    private final FloatBuffer logPrior;
+    private final FloatBuffer zeroBaseline;
+    private final FloatBuffer logZero;
+    private final FloatBuffer mean;
+    private final FloatBuffer stdDev;
+    private final FloatBuffer precision;
+
+    NaiveBayesScorer(String[] classLabels, FloatBuffer logPrior, FloatBuffer zeroBaseline, FloatBuffer logZero,
+                     FloatBuffer mean, FloatBuffer stdDev, FloatBuffer precision) {
+        this.classLabels = classLabels;
+        this.numClasses = classLabels.length;
+        this.logPrior = logPrior;
+        this.zeroBaseline = zeroBaseline;
+        this.logZero = logZero;
+        this.mean = mean;
+        this.stdDev = stdDev;
+        this.precision = precision;
+    }
+
+    /**
+     * Exports a trained model. Term ids are the attribute indices of {@code header}; the class attribute's
+     * slot is left empty.
+     */
+    public static NaiveBayesScorer export(NaiveBayes naiveBayes, Instances header) {
+        Attribute classAttribute = header.classAttribute();
+        int numClasses = classAttribute.numValues();
+        int numTerms = header.numAttributes();
+        Estimator[][] distributions = naiveBayes.getConditionalEstimators();
+        DiscreteEstimator classEstimator = (DiscreteEstimator) naiveBayes.getClassEstimator();
+
+        String[] classLabels = new String[numClasses];
+        float[] logPrior = new float[numClasses];
+        for (int c = 0; c < numClasses; c++) {
+            classLabels[c] = classAttribute.value(c);
+            logPrior[c] = (float) Math.log(classEstimator.getProbability(c));
+        }
+
+        float[] mean = new float[numTerms * numClasses];
+        float[] stdDev = new float[numTerms * numClasses];
+        float[] precision = new float[numTerms];
+        int estimatorIndex = 0;
+        for (int t = 0; t < numTerms; t++) {
+            if (t == header.classIndex()) {
+                continue;
+            }
+            if (!header.attribute(t).isNumeric() || header.attribute(t).weight() != 1.0) {
+                throw new IllegalArgumentException("Unsupported attribute for scoring: " + header.attribute(t).name());
+            }
+            for (int c = 0; c < numClasses; c++) {
+                NormalEstimator estimator = (NormalEstimator) distributions[estimatorIndex][c];
+                mean[t * numClasses + c] = (float) estimator.getMean();
+                stdDev[t * numClasses + c] = (float) estimator.getStdDev();
+                precision[t] = (float) estimator.getPrecision();
+            }
+            estimatorIndex++;
+        }
+        return fromTables(classLabels, logPrior, mean, stdDev, precision, header.classIndex());
+    }
+
+    /**
+     * Builds a scorer from per-class log priors and term-major Gaussian parameters, precomputing the
+     * zero-count baseline. {@code classIndex} is the unused term slot of the class attribute.
+     */
+    static NaiveBayesScorer fromTables(String[] classLabels, float[] logPrior, float[] mean, float[] stdDev,
+                                          float[] precision, int classIndex) {
+        int numClasses = classLabels.length;
+        float[] logZero = new float[mean.length];
+        double[] baseline = new double[numClasses];
+        for (int t = 0; t < precision.length; t++) {
+            if (t == classIndex) {
+                continue;
+            }
+            for (int c = 0; c < numClasses; c++) {
+                int cell = t * numClasses + c;
+                double logP = logLikelihood(0, mean[cell], stdDev[cell], precision[t]);
+                logZero[cell] = (float) logP;
+                baseline[c] += logP;
+            }
+        }
+        float[] zeroBaseline = new float[numClasses];
+        for (int c = 0; c < numClasses; c++) {
+            zeroBaseline[c] = (float) baseline[c];
+        }
+        return new NaiveBayesScorer(classLabels, FloatBuffer.wrap(logPrior), FloatBuffer.wrap(zeroBaseline),
+                FloatBuffer.wrap(logZero), FloatBuffer.wrap(mean), FloatBuffer.wrap(stdDev),
+                FloatBuffer.wrap(precision));
+    }
+
+    private static double logLikelihood(double value, double mean, double stdDev, double precision) {
+        double rounded = Math.rint(value / precision) * precision;
+        double zLower = (rounded - mean - precision / 2) / stdDev;
+        double zUpper = (rounded - mean + precision / 2) / stdDev;
+        double p = (Statistics.normalProbability(zUpper) - Statistics.normalProbability(zLower)) / precision;
+        return Math.log(Math.max(MIN_PROBABILITY, p));
+    }
+
+    /**
+     * Writes the unnormalized log posterior of every class into {@code scores}.
+     *
+     * @param termIds term ids of the non-zero entries
+     * @param values  term values, parallel to {@code termIds}
+     * @param size    number of entries used in {@code termIds}/{@code values}
+     * @param scores  output, at least {@link #numClasses()} long
+     */
+    public void logScores(int[] termIds, double[] values, int size, double[] scores) {
+        for (int c = 0; c < numClasses; c++) {
+            scores[c] = logPrior.get(c) + zeroBaseline.get(c);
+        }
+        for (int i = 0; i < size; i++) {
+            int t = termIds[i];
+            int row = t * numClasses;
+            float termPrecision = precision.get(t);
+            for (int c = 0; c < numClasses; c++) {
+                int cell = row + c;
+                scores[c] += logLikelihood(values[i], mean.get(cell), stdDev.get(cell), termPrecision)
+                        - logZero.get(cell);
+            }
+        }
+    }
+
+    /** Returns the index of the most probable class; ties go to the lowest index, as in Weka. */
+    public int predict(int[] termIds, double[] values, int size, double[] scores) {
+        logScores(termIds, values, size, scores);
+        int best = 0;
+        for (int c = 1; c < numClasses; c++) {
+            if (scores[c] > scores[best]) {
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /** Turns the log scores written by {@link #logScores} into probabilities, in place. */
+    public void normalize(double[] scores) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int c = 0; c < numClasses; c++) {
+            max = Math.max(max, scores[c]);
+        }
+        double sum = 0;
+        for (int c = 0; c < numClasses; c++) {
+            scores[c] = Math.exp(scores[c] - max);
+            sum += scores[c];
+        }
+        for (int c = 0; c < numClasses; c++) {
+            scores[c] /= sum;
+        }
+    }
+
+    public int numClasses() {
+        return numClasses;
+    }
+
+    public String classLabel(int classId) {
+        return classLabels[classId];
+    }
+
+    String[] classLabels() {
+        return classLabels;
+    }
+
+    FloatBuffer[] tables() {
+        return new FloatBuffer[]{logPrior, zeroBaseline, logZero, mean, stdDev, precision};
+    }
+}
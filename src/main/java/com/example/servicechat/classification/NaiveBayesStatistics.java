@@ -0,0 +1,161 @@
+package com.example.servicechat.classification;
+
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Additive training statistics of the word-count Naive Bayes model, from which a {@link NaiveBayesScorer} can
+ * be rebuilt at any time. Adding a labeled utterance only bumps counters, so the model can learn online
+ * without retraining.
+ * <p>
+ * For every (term, class) pair the statistics keep a histogram of the non-zero counts seen. That is enough
+ * to reproduce what Weka's {@code NaiveBayes} derives from the full training set: the class priors
+ * (Laplace-corrected), the per-term precision (mean gap between distinct values) and the rounded Gaussian
+ * mean and standard deviation. A scorer built here therefore matches a Weka model trained from scratch on
+ * the same rows.
+ * <p>
+ * Not thread-safe; {@link QueryClassifier} serializes updates and publishes immutable scorers.
+ */
+final class NaiveBayesStatistics {
+
+    /** Weka's {@code NaiveBayes.DEFAULT_NUM_PRECISION}, used for terms with a single distinct value. */
+    private static final double DEFAULT_PRECISION = 0.01;
+
+    private final String[] classLabels;
+    private final int classIndex;
+    private final double[] classCounts;
+    /** Per term id: {@code [classId][count]} = number of rows of that class with that count (count >= 1). */
+    private final List<int[][]> histograms = new ArrayList<>();
+
+    private NaiveBayesStatistics(String[] classLabels, int classIndex, int numTerms) {
+        this.classLabels = classLabels;
+        this.classIndex = classIndex;
+        this.classCounts = new double[classLabels.length];
+        for (int t = 0; t < numTerms; t++) {
+            histograms.add(t == classIndex ? null : new int[classLabels.length][0]);
+        }
+    }
+
+    /**
+     * Collects the statistics of {@code training} (raw text and class, as in {@code training.arff}) in the term
+     * space of {@code vectorizer}. Rows with a missing class are skipped, as Weka does.
+     */
+    static NaiveBayesStatistics collect(QueryVectorizer vectorizer, Instances training) {
+        Instances header = vectorizer.getHeader();
+        String[] classLabels = new String[header.classAttribute().numValues()];
+        for (int c = 0; c < classLabels.length; c++) {
+            classLabels[c] = header.classAttribute().value(c);
+        }
+        NaiveBayesStatistics statistics = new NaiveBayesStatistics(classLabels, header.classIndex(),
+                header.numAttributes());
+        for (Instance row : training) {
+            if (!row.classIsMissing()) {
+                statistics.add(vectorizer, (int) row.classValue(), row.stringValue(0));
+            }
+        }
+        return statistics;
+    }
+
+    /** Appends a term slot; its id is the next attribute index, matching {@link QueryVectorizer#withTerms}. */
+    void addTerm() {
+        histograms.add(new int[classLabels.length][0]);
+    }
+
+    int numTerms() {
+        return histograms.size();
+    }
+
+    /** Counts one row of class {@code classId}. Every token must already be in the vectorizer's vocabulary. */
+    void add(QueryVectorizer vectorizer, int classId, String text) {
+        String[] tokens = vectorizer.tokenize(text);
+        int[] termIds = new int[tokens.length];
+        double[] values = new double[tokens.length];
+        int size = vectorizer.vectorize(tokens, termIds, values);
+
+        classCounts[classId]++;
+        for (int i = 0; i < size; i++) {
+            int count = (int) values[i];
+            int[][] histogram = histograms.get(termIds[i]);
+            if (histogram[classId].length <= count) {
+                histogram[classId] = Arrays.copyOf(histogram[classId], count + 1);
+            }
+            histogram[classId][count]++;
+        }
+    }
+
+    NaiveBayesScorer toScorer() {
+        int numClasses = classLabels.length;
+        int numTerms = histograms.size();
+        double rows = 0;
+        for (double count : classCounts) {
+            rows += count;
+        }
+
+        float[] logPrior = new float[numClasses];
+        for (int c = 0; c < numClasses; c++) {
+            logPrior[c] = (float) Math.log((classCounts[c] + 1) / (rows + numClasses));
+        }
+
+        float[] mean = new float[numTerms * numClasses];
+        float[] stdDev = new float[numTerms * numClasses];
+        float[] precision = new float[numTerms];
+        for (int t = 0; t < numTerms; t++) {
+            int[][] histogram = histograms.get(t);
+            if (histogram == null) {
+                continue;
+            }
+            double termPrecision = precision(histogram, rows);
+            precision[t] = (float) termPrecision;
+            for (int c = 0; c < numClasses; c++) {
+                double sum = 0;
+                double sumOfSquares = 0;
+                for (int count = 1; count < histogram[c].length; count++) {
+                    double value = Math.rint(count / termPrecision) * termPrecision;
+                    sum += histogram[c][count] * value;
+                    sumOfSquares += histogram[c][count] * value * value;
+                }
+                // NormalEstimator.computeParameters: keep the default deviation until there is a spread
+                double classMean = classCounts[c] > 0 ? sum / classCounts[c] : 0;
+                double deviation = classCounts[c] > 0
+                        ? Math.sqrt(Math.abs(sumOfSquares - classMean * sum) / classCounts[c]) : 0;
+                mean[t * numClasses + c] = (float) classMean;
+                stdDev[t * numClasses + c] = (float) (deviation > 1e-10
+                        ? Math.max(termPrecision / (2 * 3), deviation) : termPrecision / (2 * 3));
+            }
+        }
+        return NaiveBayesScorer.fromTables(classLabels, logPrior, mean, stdDev, precision, classIndex);
+    }
+
+    /** Weka's precision: the average gap between consecutive distinct values of the term over all rows. */
+    private static double precision(int[][] histogram, double rows) {
+        int maxCount = 0;
+        for (int[] classHistogram : histogram) {
+            maxCount = Math.max(maxCount, classHistogram.length - 1);
+        }
+        int distinct = 0;
+        int min = -1;
+        int max = 0;
+        double nonZeroRows = 0;
+        for (int count = 1; count <= maxCount; count++) {
+            int seen = 0;
+            for (int[] classHistogram : histogram) {
+                seen += count < classHistogram.length ? classHistogram[count] : 0;
+            }
+            if (seen > 0) {
+                distinct++;
+                min = min < 0 ? count : min;
+                max = count;
+                nonZeroRows += seen;
+            }
+        }
+        if (nonZeroRows < rows) {
+            distinct++;
+            min = 0;
+        }
+        return distinct > 1 ? (max - min) / (double) (distinct - 1) : DEFAULT_PRECISION;
+    }
+}
@@ -1,80 +1,68 @@
 package com.example.servicechat.classification;
 
+import com.example.servicechat.model.IntentScore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import weka.classifiers.Classifier;
-import weka.core.*;
 import weka.filters.unsupervised.attribute.StringToWordVector;
 
 import java.lang.invoke.MethodHandles;
-import java.util.Enumeration;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
 
 public class PredictedQueryClassify {
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
-    private Set<String> modelWords = null;
 
-    public String predictedQueryClassify(String testQuery, Instances instance, Instances trainDataSetInstance, Classifier classifier) throws Exception {
+    public String predictedQueryClassify(String testQuery, IntentModelSnapshot model) {
+        NaiveBayesScorer scorer = model.getScorer();
+        ScoringBuffer buffer = score(model.getVectorizer().tokenize(testQuery), model);
+        int classIndex = scorer.predict(buffer.termIds, buffer.values, buffer.size, buffer.scores);
 
-        setModelValue(instance);
-        String acceptedWord = acceptedWord(testQuery);
-
-        Instances testInstance = new Instances(trainDataSetInstance);
-        testInstance.setClass(trainDataSetInstance.classAttribute());
-
-        Instance dataTestInstance = new DenseInstance(2);
-        dataTestInstance.setValue(trainDataSetInstance.attribute(0), acceptedWord);
-        dataTestInstance.setValue(trainDataSetInstance.classAttribute(), "?");
-        testInstance.add(dataTestInstance);
-
-        Instances filteredTests = filterText(testInstance);
-        SparseInstance sparseInst = new SparseInstance(filteredTests.instance(testInstance.size() - 1));
-        sparseInst.setDataset(filteredTests);
-
-        double classIndex = classifier.classifyInstance(sparseInst);
-        String predictedClass = trainDataSetInstance.classAttribute().value((int) classIndex);
+        String predictedClass = scorer.classLabel(classIndex);
         LOGGER.info("Predicted Class: " + predictedClass);
         return predictedClass;
     }
 
-    private void setModelValue(Instances filteredData) {
-        modelWords = new HashSet<>();
-        Enumeration<?> enumx = filteredData.enumerateAttributes();
-        while (enumx.hasMoreElements()) {
-            Attribute att = (Attribute) enumx.nextElement();
-            String attName = att.name().toLowerCase();
-            modelWords.add(attName);
-        }
-        LOGGER.info(modelWords + " <-modelWords \n");
+    /** Returns the {@code limit} most probable intents, best first. */
+    public List<IntentScore> rankedQueryClassify(String testQuery, IntentModelSnapshot model, int limit) {
+        return rankedQueryClassify(model.getVectorizer().tokenize(testQuery), model, limit);
     }
 
-    private String acceptedWord(String testQuery) {
-        StringBuilder acceptedWordsThisLine = new StringBuilder();
-        String delimitersStringToWordVector = "\\s.,:'\\\"()?!";
-        String[] splittedText = testQuery.split("[" + delimitersStringToWordVector + "]");
-        for (String sWord : splittedText) {
-            if (modelWords.contains(sWord)) {
-                acceptedWordsThisLine.append(sWord).append(" ");
+    /** Same as {@link #rankedQueryClassify(String, IntentModelSnapshot, int)} for an already tokenized query. */
+    public List<IntentScore> rankedQueryClassify(String[] tokens, IntentModelSnapshot model, int limit) {
+        NaiveBayesScorer scorer = model.getScorer();
+        ScoringBuffer buffer = score(tokens, model);
+        scorer.logScores(buffer.termIds, buffer.values, buffer.size, buffer.scores);
+        scorer.normalize(buffer.scores);
+
+        int classes = scorer.numClasses();
+        List<IntentScore> ranked = new ArrayList<>(Math.min(limit, classes));
+        boolean[] taken = new boolean[classes];
+        for (int rank = 0; rank < Math.min(limit, classes); rank++) {
+            int best = -1;
+            for (int c = 0; c < classes; c++) {
+                if (!taken[c] && (best < 0 || buffer.scores[c] > buffer.scores[best])) {
+                    best = c;
+                }
             }
+            taken[best] = true;
+            ranked.add(new IntentScore(scorer.classLabel(best), buffer.scores[best]));
         }
-        return acceptedWordsThisLine.toString();
+        LOGGER.info("Ranked Classes: {}", ranked);
+        return ranked;
     }
 
+    private ScoringBuffer score(String[] tokens, IntentModelSnapshot model) {
+        QueryVectorizer vectorizer = model.getVectorizer();
+        ScoringBuffer buffer = ScoringBuffer.current(tokens.length, model.getScorer().numClasses());
+        buffer.size = vectorizer.vectorize(tokens, buffer.termIds, buffer.values);
+        return buffer;
+    }
 
-    public Instances filterText(Instances theseInstances) {
-        StringToWordVector filter = null;
+    public StringToWordVector newFilter() {
         int wordsToKeep = 1000;
-        Instances filtered = null;
-        try {
-            filter = new StringToWordVector(wordsToKeep);
-            filter.setOutputWordCounts(true);
-            filter.setSelectedRange("1");
-            filter.setInputFormat(theseInstances);
-            filtered = weka.filters.Filter.useFilter(theseInstances, filter);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return filtered;
+        StringToWordVector filter = new StringToWordVector(wordsToKeep);
+        filter.setOutputWordCounts(true);
+        filter.setSelectedRange("1");
+        return filter;
     }
 }
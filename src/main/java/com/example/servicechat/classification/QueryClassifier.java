@@ -1,58 +1,279 @@
 package com.example.servicechat.classification;
 
+import com.example.servicechat.model.IntentScore;
+import com.example.servicechat.model.TrainingExample;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 import weka.classifiers.AbstractClassifier;
 import weka.classifiers.Classifier;
 import weka.classifiers.Evaluation;
+import weka.classifiers.bayes.NaiveBayes;
 import weka.core.*;
-import weka.core.converters.ConverterUtils;
+import weka.filters.Filter;
+import weka.filters.unsupervised.attribute.StringToWordVector;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Component
-public class QueryClassifier {
+public class QueryClassifier implements IntentClassifier {
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+    private final AtomicReference<IntentModelSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong versions = new AtomicLong();
+    private final PredictedQueryClassify predictedQueryClassify = new PredictedQueryClassify();
+    /** Online learning state for the published snapshot; built on first use, guarded by {@code this}. */
+    private NaiveBayesStatistics statistics;
+
+    @Value("${chat.classifier.model-artifact:classpath:" + IntentModelArtifact.FILE_NAME + "}")
+    private Resource modelArtifact;
+
+    @Value("${chat.intent-model.cache-dir:${chat.data-dir:data}/intent-model}")
+    private Path cacheDir;
+
+    /**
+     * Maps the build-time compiled model when it matches the training data on the classpath, and only trains
+     * at startup when there is no usable artifact (IDE runs, {@code -DskipIntentModel}, or edited data).
+     */
+    @PostConstruct
+    public void init() {
+        IntentModelSnapshot compiled = loadCompiledModel();
+        if (compiled != null) {
+            snapshot.set(compiled);
+            LOGGER.info("Published compiled intent model snapshot v{} ({} terms)",
+                    compiled.getVersion(), compiled.getVocabulary().size());
+            return;
+        }
+        retrain();
+    }
+
+    @Override
+    public String name() {
+        return "weka";
+    }
+
+    @Override
+    public long modelVersion() {
+        return snapshot.get().getVersion();
+    }
+
+    @Override
+    public List<IntentScore> rank(String query, int limit) {
+        try {
+            return predictedQueryClassify.rankedQueryClassify(query, snapshot.get(), limit);
+        } catch (Exception ex) {
+            // Thrown rather than answered with an empty ranking, which callers would cache as "no intent"
+            LOGGER.error("Intent ranking failed", ex);
+            throw new IllegalStateException("Intent ranking failed", ex);
+        }
+    }
+
+    @Override
+    public List<IntentScore> rank(String[] tokens, int limit) {
+        try {
+            return predictedQueryClassify.rankedQueryClassify(tokens, snapshot.get(), limit);
+        } catch (Exception ex) {
+            LOGGER.error("Intent ranking failed", ex);
+            throw new IllegalStateException("Intent ranking failed", ex);
+        }
+    }
+
+    @Override
+    public String classify(String query) {
+        return fetchQueryIntent(query);
+    }
+
     public String fetchQueryIntent(String query) {
-        QueryClassifier queryClassifier = new QueryClassifier();
-        PredictedQueryClassify predictedQueryClassify = new PredictedQueryClassify();
         String classIntent = null;
         try {
-            Instances trainDataSetInstance = queryClassifier.loadModal();
-            Classifier classifier = queryClassifier.getClassifier();
-            Instances instance = queryClassifier.evaluateTrainingInstance(trainDataSetInstance, classifier, predictedQueryClassify);
-            classIntent = predictedQueryClassify.predictedQueryClassify(query, instance, trainDataSetInstance, classifier);
+            classIntent = predictedQueryClassify.predictedQueryClassify(query, snapshot.get());
         } catch (Exception ex) {
             ex.printStackTrace();
         }
         return classIntent;
     }
 
-    private Instances loadModal() throws Exception {
-        ConverterUtils.DataSource source = new ConverterUtils.DataSource("training.arff");
-        Instances trainDataSetInstance = source.getDataSet();
-        trainDataSetInstance.setClassIndex(trainDataSetInstance.numAttributes() - 1);
-        return trainDataSetInstance;
+    /**
+     * Trains a new model from the training data and publishes it atomically. Requests in flight keep
+     * using the snapshot they already hold; new requests see the new one only once it is fully built.
+     * Utterances added through {@link #learn} are not part of the training data and are dropped.
+     */
+    public synchronized IntentModelSnapshot retrain() {
+        try {
+            IntentModelSnapshot trained = buildSnapshot();
+            statistics = null;
+            snapshot.set(trained);
+            LOGGER.info("Published intent model snapshot v{} ({} terms)",
+                    trained.getVersion(), trained.getVocabulary().size());
+            return trained;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to train intent model", e);
+        }
     }
 
-    private Classifier getClassifier() throws Exception {
-        String classString = "weka.classifiers.bayes.NaiveBayes";
-        return AbstractClassifier.forName(classString, null);
+    public IntentModelSnapshot getSnapshot() {
+        return snapshot.get();
     }
 
-    private Instances evaluateTrainingInstance(Instances trainDataSetInstance, Classifier classifier, PredictedQueryClassify predictedQueryClassify) throws Exception {
-        Instances instance = predictedQueryClassify.filterText(trainDataSetInstance);
-        classifier.buildClassifier(instance);
-        Evaluation evaluation = new Evaluation(trainDataSetInstance);
+    /** Intents that {@link #learn} accepts: the declared classes, without the {@code ?} placeholder. */
+    public Set<String> getIntents() {
+        NaiveBayesScorer scorer = snapshot.get().getScorer();
+        Set<String> intents = new LinkedHashSet<>();
+        for (int c = 0; c < scorer.numClasses(); c++) {
+            intents.add(scorer.classLabel(c));
+        }
+        intents.remove("?");
+        return intents;
+    }
+
+    /**
+     * Adds labeled utterances to the current model without retraining and publishes the result as a new
+     * snapshot. Naive Bayes statistics are additive, so this costs one pass over the vocabulary per call
+     * rather than a pass over the training set; words not seen before join the vocabulary.
+     *
+     * @throws IllegalArgumentException if an example names an intent outside {@link #getIntents()}
+     */
+    public synchronized IntentModelSnapshot learn(List<TrainingExample> examples) {
+        Set<String> intents = getIntents();
+        for (TrainingExample example : examples) {
+            if (!intents.contains(example.getIntent())) {
+                throw new IllegalArgumentException("Unknown intent '" + example.getIntent() + "'");
+            }
+        }
+
+        IntentModelSnapshot current = snapshot.get();
+        QueryVectorizer vectorizer = current.getVectorizer();
+        if (vectorizer.idf() != null || vectorizer.tfTransform() || !vectorizer.outputWordCounts()) {
+            throw new IllegalStateException("Online learning needs a plain word-count vectorizer");
+        }
         try {
-            evaluation.evaluateModel(classifier, trainDataSetInstance);
+            if (statistics == null) {
+                statistics = NaiveBayesStatistics.collect(vectorizer, TrainingCorpus.fromClasspath().toInstances());
+            }
         } catch (Exception e) {
-            e.printStackTrace();
+            throw new IllegalStateException("Failed to collect intent model statistics", e);
+        }
+
+        Set<String> newTerms = new LinkedHashSet<>();
+        for (TrainingExample example : examples) {
+            for (String token : vectorizer.tokenize(example.getText())) {
+                String term = vectorizer.term(token);
+                if (!vectorizer.getTerms().contains(term)) {
+                    newTerms.add(term);
+                }
+            }
+        }
+        vectorizer = vectorizer.withTerms(newTerms);
+        newTerms.forEach(term -> statistics.addTerm());
+
+        Instances header = vectorizer.getHeader();
+        for (TrainingExample example : examples) {
+            statistics.add(vectorizer, header.classAttribute().indexOfValue(example.getIntent()), example.getText());
+        }
+
+        IntentModelSnapshot learned = new IntentModelSnapshot(versions.incrementAndGet(), null,
+                vectorizer, statistics.toScorer());
+        snapshot.set(learned);
+        LOGGER.info("Learned {} utterances ({} new terms), published intent model snapshot v{}",
+                examples.size(), newTerms.size(), learned.getVersion());
+        return learned;
+    }
+
+    private IntentModelSnapshot buildSnapshot() throws Exception {
+        return train(TrainingCorpus.fromClasspath(), versions.incrementAndGet());
+    }
+
+    /** Trains the Weka model on {@code corpus}; also used by {@link IntentModelCompiler} at build time. */
+    IntentModelSnapshot train(TrainingCorpus corpus, long version) throws Exception {
+        Instances trainDataSetInstance = corpus.toInstances();
+        StringToWordVector filter = predictedQueryClassify.newFilter();
+        filter.setInputFormat(trainDataSetInstance);
+        Instances instance = Filter.useFilter(trainDataSetInstance, filter);
+
+        NaiveBayes classifier = getClassifier();
+        evaluateTrainingInstance(instance, classifier);
+        return new IntentModelSnapshot(
+                version,
+                classifier,
+                QueryVectorizer.compile(filter, instance),
+                NaiveBayesScorer.export(classifier, instance));
+    }
+
+    private IntentModelSnapshot loadCompiledModel() {
+        if (modelArtifact == null || !modelArtifact.exists()) {
+            LOGGER.info("No compiled intent model found, training at startup");
+            return null;
+        }
+        try {
+            String expected = TrainingCorpus.fromClasspath().fingerprint();
+            Path file = modelArtifact.isFile() ? modelArtifact.getFile().toPath() : extract(modelArtifact);
+            IntentModelArtifact artifact = IntentModelArtifact.map(file);
+            if (!artifact.getFingerprint().equals(expected)) {
+                LOGGER.warn("Compiled intent model {} was built from different training data ({} != {}), retraining",
+                        file, artifact.getFingerprint(), expected);
+                return null;
+            }
+            return new IntentModelSnapshot(versions.incrementAndGet(), null,
+                    artifact.getVectorizer(), artifact.getScorer());
+        } catch (Exception e) {
+            LOGGER.warn("Could not load compiled intent model {}, retraining", modelArtifact, e);
+            return null;
+        }
+    }
+
+    /**
+     * Copies an artifact that is not a plain file (packaged in the jar) into the cache directory so it can be
+     * mapped. The copy is named by a hash of its content, so a new build never reuses a stale copy.
+     */
+    private Path extract(Resource resource) throws IOException, NoSuchAlgorithmException {
+        byte[] content;
+        try (InputStream in = resource.getInputStream()) {
+            content = in.readAllBytes();
+        }
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)).substring(0, 16);
+        Path target = cacheDir.resolve("intent-model-" + hash + ".nbm");
+        if (!Files.exists(target)) {
+            Files.createDirectories(cacheDir);
+            Path partial = Files.createTempFile(cacheDir, "intent-model", ".nbm.partial");
+            try {
+                Files.write(partial, content);
+                Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(partial);
+            }
+        }
+        return target;
+    }
+
+    private NaiveBayes getClassifier() throws Exception {
+        String classString = "weka.classifiers.bayes.NaiveBayes";
+        return (NaiveBayes) AbstractClassifier.forName(classString, null);
+    }
+
+    private void evaluateTrainingInstance(Instances instance, Classifier classifier) throws Exception {
+        classifier.buildClassifier(instance);
+        if (LOGGER.isDebugEnabled()) {
+            Evaluation evaluation = new Evaluation(instance);
+            try {
+                evaluation.evaluateModel(classifier, instance);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            printClassifierAndEvaluation(classifier, evaluation);
         }
-      //  printClassifierAndEvaluation(classifier, evaluation);
-        return instance;
     }
 
     private StringBuffer printClassifierAndEvaluation(Classifier thisClassifier, Evaluation thisEvaluation) {
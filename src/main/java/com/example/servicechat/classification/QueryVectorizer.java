@@ -0,0 +1,180 @@
+package com.example.servicechat.classification;
+
+import weka.core.Attribute;
+import weka.core.Instances;
+import weka.filters.unsupervised.attribute.StringToWordVector;
+
+import java.util.*;
+
+/**
+ * Turns a query into the word-vector space of a trained {@link StringToWordVector} without running the
+ * filter again. The term dictionary and the transform settings are captured once at training time, so
+ * vectorizing costs a hash lookup per query token instead of a pass over the training set.
+ */
+public final class QueryVectorizer {
+
+    /** Same delimiters as Weka's default {@code WordTokenizer}. */
+    private static final String DELIMITERS = " \r\n\t.,;:'\"()?!";
+
+    private final Instances header;
+    private final Map<String, Integer> termIndex;
+    private final double[] idf;
+    private final boolean outputWordCounts;
+    private final boolean tfTransform;
+    private final boolean lowerCaseTokens;
+
+    private QueryVectorizer(Instances header, Map<String, Integer> termIndex, double[] idf,
+                            boolean outputWordCounts, boolean tfTransform, boolean lowerCaseTokens) {
+        this.header = header;
+        this.termIndex = termIndex;
+        this.idf = idf;
+        this.outputWordCounts = outputWordCounts;
+        this.tfTransform = tfTransform;
+        this.lowerCaseTokens = lowerCaseTokens;
+    }
+
+    /**
+     * Compiles a vectorizer from a filter that has already processed the training set.
+     *
+     * @param filter       the filter used to build {@code filteredData}
+     * @param filteredData the filter output the classifier was trained on
+     */
+    public static QueryVectorizer compile(StringToWordVector filter, Instances filteredData) {
+        if (filter.getNormalizeDocLength().getSelectedTag().getID() != StringToWordVector.FILTER_NONE) {
+            throw new IllegalArgumentException("Document length normalization is not supported by the query vectorizer");
+        }
+        Map<String, Integer> termIndex = termIndex(filteredData);
+
+        double[] idf = null;
+        if (filter.getIDFTransform()) {
+            idf = new double[filteredData.numAttributes()];
+            int[] docFrequency = new int[filteredData.numAttributes()];
+            for (int row = 0; row < filteredData.numInstances(); row++) {
+                var instance = filteredData.instance(row);
+                for (int p = 0; p < instance.numValues(); p++) {
+                    if (instance.valueSparse(p) != 0) {
+                        docFrequency[instance.index(p)]++;
+                    }
+                }
+            }
+            for (int index : termIndex.values()) {
+                idf[index] = Math.log(filteredData.numInstances() / (double) Math.max(1, docFrequency[index]));
+            }
+        }
+
+        return new QueryVectorizer(new Instances(filteredData, 0), termIndex, idf,
+                filter.getOutputWordCounts(), filter.getTFTransform(), filter.getLowerCaseTokens());
+    }
+
+    /** Rebuilds a vectorizer from settings stored in an {@link IntentModelArtifact}. */
+    static QueryVectorizer restore(Instances header, double[] idf, boolean outputWordCounts,
+                                   boolean tfTransform, boolean lowerCaseTokens) {
+        return new QueryVectorizer(header, termIndex(header), idf, outputWordCounts, tfTransform, lowerCaseTokens);
+    }
+
+    /**
+     * Returns a vectorizer whose vocabulary is extended by {@code newTerms}, appended as new attributes after
+     * the existing ones so existing term ids stay valid. This vectorizer is not modified.
+     */
+    QueryVectorizer withTerms(Collection<String> newTerms) {
+        if (newTerms.isEmpty()) {
+            return this;
+        }
+        Instances extended = new Instances(header, 0);
+        for (String term : newTerms) {
+            extended.insertAttributeAt(new Attribute(term), extended.numAttributes());
+        }
+        return new QueryVectorizer(extended, termIndex(extended), idf, outputWordCounts, tfTransform, lowerCaseTokens);
+    }
+
+    private static Map<String, Integer> termIndex(Instances header) {
+        Map<String, Integer> termIndex = new HashMap<>();
+        for (int i = 0; i < header.numAttributes(); i++) {
+            Attribute attribute = header.attribute(i);
+            if (i != header.classIndex() && attribute.isNumeric()) {
+                termIndex.put(attribute.name(), i);
+            }
+        }
+        return Map.copyOf(termIndex);
+    }
+
+    /** Splits raw text with the tokenizer delimiters used at training time. */
+    public String[] tokenize(String query) {
+        List<String> tokens = new ArrayList<>();
+        StringTokenizer tokenizer = new StringTokenizer(query, DELIMITERS);
+        while (tokenizer.hasMoreTokens()) {
+            tokens.add(tokenizer.nextToken());
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    /**
+     * Writes the non-zero entries of the word vector into caller-owned buffers, sorted by term id. Both
+     * buffers must be at least {@code tokens.length} long.
+     *
+     * @return the number of entries written
+     */
+    public int vectorize(String[] tokens, int[] termIds, double[] values) {
+        int hitCount = 0;
+        for (String token : tokens) {
+            Integer index = termIndex.get(term(token));
+            if (index != null) {
+                termIds[hitCount++] = index;
+            }
+        }
+        Arrays.sort(termIds, 0, hitCount);
+
+        int size = 0;
+        for (int i = 0; i < hitCount; ) {
+            int index = termIds[i];
+            int count = 0;
+            while (i < hitCount && termIds[i] == index) {
+                count++;
+                i++;
+            }
+            termIds[size] = index;
+            values[size++] = weight(index, count);
+        }
+        return size;
+    }
+
+    /** The dictionary form of a token, i.e. what the filter would have stored as the attribute name. */
+    String term(String token) {
+        return lowerCaseTokens ? token.toLowerCase() : token;
+    }
+
+    private double weight(int index, int count) {
+        double value = outputWordCounts ? count : 1.0;
+        if (tfTransform) {
+            value = Math.log(value + 1);
+        }
+        if (idf != null) {
+            value *= idf[index];
+        }
+        return value;
+    }
+
+    public Instances getHeader() {
+        return header;
+    }
+
+    public Set<String> getTerms() {
+        return termIndex.keySet();
+    }
+
+    double[] idf() {
+        return idf;
+    }
+
+    boolean outputWordCounts() {
+        return outputWordCounts;
+    }
+
+    boolean tfTransform() {
+        return tfTransform;
+    }
+
+    boolean lowerCaseTokens() {
+        return lowerCaseTokens;
+    }
+}
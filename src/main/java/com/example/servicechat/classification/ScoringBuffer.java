@@ -0,0 +1,27 @@
+package com.example.servicechat.classification;
+
+/**
+ * Per-thread scratch space for {@link NaiveBayesScorer}, so the scoring path reuses its arrays instead of
+ * allocating new ones for every query.
+ */
+final class ScoringBuffer {
+
+    private static final ThreadLocal<ScoringBuffer> CURRENT = ThreadLocal.withInitial(ScoringBuffer::new);
+
+    int[] termIds = new int[16];
+    double[] values = new double[16];
+    double[] scores = new double[16];
+    int size;
+
+    static ScoringBuffer current(int tokens, int classes) {
+        ScoringBuffer buffer = CURRENT.get();
+        if (buffer.termIds.length < tokens) {
+            buffer.termIds = new int[tokens];
+            buffer.values = new double[tokens];
+        }
+        if (buffer.scores.length < classes) {
+            buffer.scores = new double[classes];
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.servicechat.classification;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.converters.ConverterUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * The intent training data: {@code training.arff} plus, when present, the tab separated
+ * {@code intent-training-data.txt} ({@code intent<TAB>text} per line). Runtime training and the build-time model
+ * compiler both read it through here, so a compiled model and a runtime-trained one see the same rows.
+ */
+final class TrainingCorpus {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    static final String ARFF_FILE = "training.arff";
+    static final String TEXT_FILE = "intent-training-data.txt";
+
+    private final byte[] arff;
+    private final byte[] text;
+
+    private TrainingCorpus(byte[] arff, byte[] text) {
+        this.arff = arff;
+        this.text = text;
+    }
+
+    static TrainingCorpus fromClasspath() throws IOException {
+        return new TrainingCorpus(readResource(ARFF_FILE, true), readResource(TEXT_FILE, false));
+    }
+
+    static TrainingCorpus fromDirectory(Path directory) throws IOException {
+        Path textFile = directory.resolve(TEXT_FILE);
+        return new TrainingCorpus(Files.readAllBytes(directory.resolve(ARFF_FILE)),
+                Files.exists(textFile) ? Files.readAllBytes(textFile) : new byte[0]);
+    }
+
+    private static byte[] readResource(String name, boolean required) throws IOException {
+        try (InputStream in = TrainingCorpus.class.getClassLoader().getResourceAsStream(name)) {
+            if (in == null) {
+                if (required) {
+                    throw new IOException(name + " not found on the classpath");
+                }
+                return new byte[0];
+            }
+            return in.readAllBytes();
+        }
+    }
+
+    /** All rows as {@code (text, intent)} instances, class index set. */
+    Instances toInstances() throws Exception {
+        Instances data = new ConverterUtils.DataSource(new ByteArrayInputStream(arff)).getDataSet();
+        data.setClassIndex(data.numAttributes() - 1);
+
+        for (String line : new String(text, StandardCharsets.UTF_8).split("\\R")) {
+            int tab = line.indexOf('\t');
+            if (tab <= 0) {
+                continue;
+            }
+            String intent = line.substring(0, tab).trim();
+            if (data.classAttribute().indexOfValue(intent) < 0) {
+                LOGGER.warn("Skipping {} row with undeclared intent '{}'", TEXT_FILE, intent);
+                continue;
+            }
+            Instance row = new DenseInstance(2);
+            row.setDataset(data);
+            row.setValue(0, line.substring(tab + 1).trim());
+            row.setValue(data.classIndex(), intent);
+            data.add(row);
+        }
+        return data;
+    }
+
+    /** Short hash of the raw training files; a compiled model is only valid for the data it was built from. */
+    String fingerprint() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(arff);
+            digest.update((byte) 0);
+            digest.update(text);
+            return HexFormat.of().formatHex(digest.digest()).substring(0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -2,33 +2,62 @@ package com.example.servicechat.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.stanford.nlp.pipeline.StanfordCoreNLP;
-import jakarta.annotation.PostConstruct;
-import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 
+import java.util.Map;
 import java.util.Properties;
 
+/**
+ * CoreNLP pipeline settings, one annotator set per named profile. Use sites ask for the cheapest profile that
+ * gives them what they read, so models a deployment never uses (parser, coref, NER) are never loaded.
+ * Pipelines themselves are created and pooled by {@code NlpPipelinePool}.
+ * <p>
+ * Built-in profiles are {@code lemma-only}, {@code ner} and {@code full}. The annotators of any profile,
+ * including new ones, can be set with {@code chat.nlp.profiles.<name>.annotators}.
+ */
 @Configuration
 public class ChatConfig {
 
-    private StanfordCoreNLP pipeline;
+    public static final String LEMMA_ONLY = "lemma-only";
+    public static final String NER = "ner";
+    public static final String FULL = "full";
 
-    @PostConstruct
-    public void init() {
-        Properties props = new Properties();
-        props.setProperty("ner.useSUTime", "0");
-        props.setProperty("annotators", "tokenize, ssplit, pos, lemma, ner, parse, depparse, dcoref");
-        props.setProperty("tokenize.whitespace", "true");
-        pipeline = new StanfordCoreNLP(props);
-    }
+    private static final Map<String, String> DEFAULT_ANNOTATORS = Map.of(
+            LEMMA_ONLY, "tokenize, ssplit, pos, lemma",
+            NER, "tokenize, ssplit, pos, lemma, ner",
+            FULL, "tokenize, ssplit, pos, lemma, ner, parse, depparse, dcoref");
+
+    @Autowired
+    private Environment environment;
 
     @Bean
     public ObjectMapper getObjectMapper(){
         return new ObjectMapper();
     }
 
-    public StanfordCoreNLP getPipeline() {
-        return pipeline;
+    /**
+     * Creates a new pipeline for {@code profile}. CoreNLP shares loaded annotators between pipelines with the
+     * same settings, so only the first pipeline of a profile pays for loading its models.
+     *
+     * @throws IllegalArgumentException if the profile is neither built in nor configured
+     */
+    public StanfordCoreNLP createPipeline(String profile) {
+        Properties props = new Properties();
+        props.setProperty("ner.useSUTime", "0");
+        props.setProperty("annotators", annotators(profile));
+        props.setProperty("tokenize.whitespace", "true");
+        return new StanfordCoreNLP(props);
+    }
+
+    private String annotators(String profile) {
+        String annotators = environment.getProperty("chat.nlp.profiles." + profile + ".annotators",
+                DEFAULT_ANNOTATORS.get(profile));
+        if (annotators == null) {
+            throw new IllegalArgumentException("Unknown CoreNLP profile '" + profile + "'");
+        }
+        return annotators;
     }
 }
@@ -10,8 +10,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import java.lang.invoke.MethodHandles;
 
@@ -26,13 +28,19 @@ public class ChatController {
     @Autowired
     private ChatService chatService;
 
+    /**
+     * Handles one chat message. With the {@code X-Chat-Trace: true} header or {@code ?trace=true}, the response
+     * also carries the per-stage trace of the turn.
+     */
     @RequestMapping(value = "/query",
             produces = {MediaType.APPLICATION_JSON_VALUE},
             consumes = { MediaType.TEXT_PLAIN_VALUE },
             method = RequestMethod.POST)
-    public ResponseEntity<ChatResponse> chat(@RequestBody String message) {
+    public ResponseEntity<ChatResponse> chat(@RequestBody String message,
+                                             @RequestHeader(value = "X-Chat-Trace", defaultValue = "false") boolean traceHeader,
+                                             @RequestParam(value = "trace", defaultValue = "false") boolean traceParam) {
         LOGGER.info("Received message: {}", message);
-        return ResponseEntity.ok(chatService.handleUserMessage(message.trim()));
+        return ResponseEntity.ok(chatService.handleUserMessage(message.trim(), traceHeader || traceParam));
     }
 
 
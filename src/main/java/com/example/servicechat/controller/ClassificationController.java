@@ -0,0 +1,38 @@
+package com.example.servicechat.controller;
+
+import com.example.servicechat.model.BatchClassificationResult;
+import com.example.servicechat.service.BatchClassificationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.lang.invoke.MethodHandles;
+import java.util.List;
+
+@Controller
+public class ClassificationController {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    @Autowired
+    private BatchClassificationService batchClassificationService;
+
+    @RequestMapping(value = "/classify/batch",
+            produces = {MediaType.APPLICATION_JSON_VALUE},
+            consumes = {MediaType.APPLICATION_JSON_VALUE},
+            method = RequestMethod.POST)
+    public ResponseEntity<List<BatchClassificationResult>> classifyBatch(@RequestBody List<String> utterances) {
+        LOGGER.info("Received batch of {} utterances", utterances.size());
+        try {
+            return ResponseEntity.ok(batchClassificationService.classify(utterances));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Rejected batch: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.servicechat.controller;
+
+import com.example.servicechat.model.TrainingExample;
+import com.example.servicechat.model.TrainingResult;
+import com.example.servicechat.service.IntentLearningService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+@Controller
+public class TrainingController {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final String ADMIN_TOKEN_HEADER = "X-Admin-Token";
+
+    @Autowired
+    private IntentLearningService intentLearningService;
+
+    // Online training is disabled unless a token is configured
+    @Value("${chat.training.admin-token:}")
+    private String adminToken;
+
+    @RequestMapping(value = "/train",
+            produces = {MediaType.APPLICATION_JSON_VALUE},
+            consumes = {MediaType.APPLICATION_JSON_VALUE},
+            method = RequestMethod.POST)
+    public ResponseEntity<TrainingResult> train(@RequestHeader(value = ADMIN_TOKEN_HEADER, required = false) String token,
+                                                @RequestBody List<TrainingExample> examples) {
+        if (!authorized(token)) {
+            LOGGER.warn("Rejected training request without a valid {}", ADMIN_TOKEN_HEADER);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        LOGGER.info("Received {} training examples", examples.size());
+        try {
+            return ResponseEntity.ok(intentLearningService.learn(examples));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Rejected training examples: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private boolean authorized(String token) {
+        return !adminToken.isBlank() && token != null && MessageDigest.isEqual(
+                adminToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+}
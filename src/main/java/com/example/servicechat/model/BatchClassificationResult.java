@@ -0,0 +1,26 @@
+package com.example.servicechat.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchClassificationResult {
+    private String utterance;
+    private String normalizedQuery;
+    private String intent;
+    private boolean exactMatch;
+    private List<IntentScore> scores;
+    private ServiceMatch service;
+    private String error;
+
+    public static BatchClassificationResult failed(String utterance, String error) {
+        return new BatchClassificationResult(utterance, null, null, false, List.of(), null, error);
+    }
+}
@@ -1,18 +1,27 @@
 package com.example.servicechat.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import lombok.ToString;
 
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
+@ToString
 public class ChatResponse {
     private int responseCode;
     private String responseText;
     private String queryIntent;
     private String fileName;
-}
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @ToString.Exclude
+    private ChatTrace trace;        // only when the request asked for a trace
 
+    public ChatResponse(int responseCode, String responseText, String queryIntent, String fileName) {
+        this(responseCode, responseText, queryIntent, fileName, null);
+    }
+}
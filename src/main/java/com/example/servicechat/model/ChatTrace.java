@@ -0,0 +1,33 @@
+package com.example.servicechat.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What one chat turn did, returned with the response when the caller asks for a trace. Stages are listed in
+ * the order they finished, so a nested stage comes before the stage that contains it.
+ */
+@Getter
+@Setter
+@ToString
+public class ChatTrace {
+    private final List<Stage> stages = new ArrayList<>();
+    private List<IntentScore> intentScores = List.of();        // best first, empty on continuation turns
+    private List<ServiceMatch> serviceMatches = List.of();     // last service search of the turn
+    private long elapsedNanos;                                 // whole turn
+
+    @Getter
+    @AllArgsConstructor
+    @ToString
+    public static class Stage {
+        private String name;
+        private String input;
+        private String output;
+        private long elapsedNanos;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.servicechat.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+@ToString
+public class IntentPrediction {
+
+    public static final IntentPrediction NONE = new IntentPrediction(List.of(), false);
+
+    private List<IntentScore> scores;   // best first
+    private boolean exactMatch;         // answered from a known training phrase, no model run
+
+    public String getIntent() {
+        return scores.isEmpty() ? null : scores.get(0).getIntent();
+    }
+
+    public double getConfidence() {
+        return scores.isEmpty() ? 0.0 : scores.get(0).getProbability();
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.servicechat.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@AllArgsConstructor
+@ToString
+public class IntentScore {
+    private String intent;
+    private double probability;
+}
@@ -0,0 +1,29 @@
+package com.example.servicechat.model;
+
+import lombok.Getter;
+
+/**
+ * A user query after normalization: lowercase ASCII words and digits, stop words removed, spelling
+ * corrected. Downstream stages read {@link #getTokens()} instead of splitting {@link #getText()} again; the
+ * array is shared and must not be modified.
+ */
+@Getter
+public final class NormalizedQuery {
+
+    private final String[] tokens;
+    private final String text;     // tokens joined by single spaces
+
+    public NormalizedQuery(String[] tokens) {
+        this.tokens = tokens;
+        this.text = String.join(" ", tokens);
+    }
+
+    public boolean isEmpty() {
+        return tokens.length == 0;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
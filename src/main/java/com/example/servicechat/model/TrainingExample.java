@@ -0,0 +1,15 @@
+package com.example.servicechat.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class TrainingExample {
+    private String intent;
+    private String text;    // as the user typed it; a correction is simply the misclassified query with the right intent
+}
@@ -0,0 +1,14 @@
+package com.example.servicechat.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@AllArgsConstructor
+@ToString
+public class TrainingResult {
+    private int learned;
+    private long modelVersion;
+    private int vocabularySize;
+}
@@ -0,0 +1,91 @@
+package com.example.servicechat.service;
+
+import com.example.servicechat.model.BatchClassificationResult;
+import com.example.servicechat.model.IntentPrediction;
+import com.example.servicechat.model.NormalizedQuery;
+import com.example.servicechat.model.ServiceMatch;
+import com.example.servicechat.utility.GenerateQueryToken;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.lang.invoke.MethodHandles;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Stateless classification of many utterances at once, for offline labelling and drift checks. Unlike the
+ * conversational {@link ChatService} it keeps no session, and it spreads the work over a dedicated pool so a
+ * large batch cannot starve the common pool used elsewhere.
+ */
+@Service
+public class BatchClassificationService {
+
+    private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private final GenerateQueryToken queryTokenUtil;
+    private final IntentClassificationService classifier;
+    private final ServiceMatcher serviceMatcher;
+    private final ForkJoinPool pool;
+    private final int maxBatchSize;
+
+    public BatchClassificationService(GenerateQueryToken queryTokenUtil,
+                                      IntentClassificationService classifier,
+                                      ServiceMatcher serviceMatcher,
+                                      @Value("${chat.batch.parallelism:0}") int parallelism,
+                                      @Value("${chat.batch.max-size:10000}") int maxBatchSize) {
+        this.queryTokenUtil = queryTokenUtil;
+        this.classifier = classifier;
+        this.serviceMatcher = serviceMatcher;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public List<BatchClassificationResult> classify(List<String> utterances) {
+        if (utterances.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch of " + utterances.size()
+                    + " utterances exceeds the limit of " + maxBatchSize);
+        }
+        long start = System.nanoTime();
+        try {
+            List<BatchClassificationResult> results = pool.submit(() -> utterances.parallelStream()
+                    .map(this::classifyOne)
+                    .toList()).get();
+            log.info("Classified batch of {} utterances in {} ms", utterances.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch classification interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch classification failed", e.getCause());
+        }
+    }
+
+    private BatchClassificationResult classifyOne(String utterance) {
+        if (utterance == null || utterance.isBlank()) {
+            return BatchClassificationResult.failed(utterance, "empty utterance");
+        }
+        try {
+            NormalizedQuery normalized = queryTokenUtil.normalize(utterance);
+            // Not cached: one-off batch utterances would only evict the live chat's entries
+            IntentPrediction prediction = classifier.predict(normalized);
+            List<ServiceMatch> services = normalized.isEmpty() ? List.of()
+                    : serviceMatcher.findMatchingServices(normalized.getText());
+            return new BatchClassificationResult(utterance, normalized.getText(), prediction.getIntent(),
+                    prediction.isExactMatch(), prediction.getScores(),
+                    services.isEmpty() ? null : services.get(0), null);
+        } catch (RuntimeException e) {
+            log.warn("Failed to classify '{}'", utterance, e);
+            return BatchClassificationResult.failed(utterance, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -3,7 +3,10 @@ package com.example.servicechat.service;
 import com.example.servicechat.model.ChatResponse;
 
 public interface ChatService {
-    ChatResponse handleUserMessage(String message);
-
+    default ChatResponse handleUserMessage(String message) {
+        return handleUserMessage(message, false);
+    }
 
+    /** Handles one user message; with {@code trace}, the response carries a {@code ChatTrace} of the turn. */
+    ChatResponse handleUserMessage(String message, boolean trace);
 }
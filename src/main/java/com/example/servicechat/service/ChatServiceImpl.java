@@ -1,13 +1,16 @@
 package com.example.servicechat.service;
 
-import com.example.servicechat.classification.QueryClassifier;
 import com.example.servicechat.model.ChatResponse;
+import com.example.servicechat.model.IntentPrediction;
+import com.example.servicechat.model.NormalizedQuery;
 import com.example.servicechat.model.SessionState;
 import com.example.servicechat.utility.GenerateQueryToken;
 import com.example.servicechat.utility.JsonMapLoader;
+import com.example.servicechat.utility.Lexicon;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.context.annotation.SessionScope;
 
@@ -29,21 +32,42 @@ public class ChatServiceImpl implements ChatService {
     @Autowired
     private ProcessIntentExecution intentExecutor;
     @Autowired
-    private QueryClassifier classifier;
+    private IntentClassificationService classifier;
+    @Autowired
+    private QueryResolutionCache resolutionCache;
     @Autowired
     private GenerateQueryToken queryTokenUtil;
+    @Autowired
+    private Lexicon lexicon;
+    @Autowired
+    private ChatStageMetrics stageMetrics;
+    @Value("${chat.classifier.min-confidence:0.0}")
+    private double minConfidence;
 
     @Override
-    public ChatResponse handleUserMessage(String userInput) {
+    public ChatResponse handleUserMessage(String userInput, boolean trace) {
         if (isResetCommand(userInput)) {
             log.info("Reset requested by user");
             session.reset();
             return buildResponse(200, "Conversation reset. How can I help you?");
         }
 
+        ChatStageMetrics.Turn turn = stageMetrics.begin(session.getIntent() == null, trace);
+        ChatResponse response = null;
+        try {
+            response = handleTurn(userInput);
+        } finally {
+            stageMetrics.end(turn, response != null && response.getQueryIntent() != null
+                    ? response.getQueryIntent() : session.getIntent());
+        }
+        response.setTrace(turn.getTrace());
+        return response;
+    }
+
+    private ChatResponse handleTurn(String userInput) {
         if(session.getActualInitialUserText()==null) session.setActualInitialUserText(userInput);
 
-        String normalizedQuery = preprocessQuery(userInput);
+        NormalizedQuery normalizedQuery = preprocessQuery(userInput);
         log.info("Normalized input: {}", normalizedQuery);
 
         if (session.getIntent() == null) {
@@ -58,40 +82,48 @@ public class ChatServiceImpl implements ChatService {
         return continueConversation(normalizedQuery);
     }
 
-    private ChatResponse startConversation(String userInput) {
+    private ChatResponse startConversation(NormalizedQuery userInput) {
         log.info("Starting conversation with input: {}", userInput);
-        String intent = classifier.fetchQueryIntent(userInput);
-        if (intent == null || "?".equals(intent)) {
+        IntentPrediction prediction = stageMetrics.time(ChatStageMetrics.CLASSIFICATION, userInput,
+                () -> resolutionCache.resolve(userInput));
+        stageMetrics.traceIntentScores(prediction.getScores());
+        String intent = prediction.getIntent();
+        if (intent == null && !classifier.isReady()) {
+            return buildResponse(503, "The assistant is still loading its model. Please try again shortly.");
+        }
+        if (intent == null || "?".equals(intent) || prediction.getConfidence() < minConfidence) {
+            log.info("Rejected intent prediction: {}", prediction);
             return buildResponse(400, "I didn't understand. Please rephrase your query.");
         }
 
-        log.info("Detected intent: {}", intent);
+        log.info("Detected intent: {} (confidence {}, exact {})", intent, prediction.getConfidence(), prediction.isExactMatch());
         session.setIntent(intent);
-        session.setInitialUserText(userInput);
+        session.setInitialUserText(userInput.getText());
         session.getRequiredIntentFields().clear();
         session.getRequiredIntentFields().addAll(intentFieldMap.get(intent));
 
-        fullyAndPartiallyMatched.updateSessionWithRequiredFields(userInput, session, queryTokenUtil);
+        fillSlots(userInput);
 
         if (isSessionComplete()) {
-            return intentExecutor.executeIntent(session);
+            return stageMetrics.time(ChatStageMetrics.EXECUTE_INTENT, session.getProvidedIntentField(),
+                    () -> intentExecutor.executeIntent(session));
         }
 
         if (hasMissingFields()) {
-            String prompt = getMissingFieldPrompt();
+            String prompt = stageMetrics.time(ChatStageMetrics.PROMPT, this::getMissingFieldPrompt);
             return buildResponse(206, prompt);
         }
 
         return buildResponse(400, "Unable to proceed with the request");
     }
 
-    private ChatResponse continueConversation(String userInput) {
-        session.setCurrentUserText(userInput);
-        fullyAndPartiallyMatched.updateSessionWithRequiredFields(userInput, session,queryTokenUtil);
+    private ChatResponse continueConversation(NormalizedQuery userInput) {
+        session.setCurrentUserText(userInput.getText());
+        fillSlots(userInput);
 
         if (!isSessionComplete()) {
             if (hasMissingFields()) {
-                String prompt = getMissingFieldPrompt();
+                String prompt = stageMetrics.time(ChatStageMetrics.PROMPT, this::getMissingFieldPrompt);
                 log.info("Missing field detected. Prompting user: {}", prompt);
                 return buildResponse(206, prompt);
             }
@@ -104,7 +136,8 @@ public class ChatServiceImpl implements ChatService {
             );
         }
 
-        ChatResponse response = intentExecutor.executeIntent(session);
+        ChatResponse response = stageMetrics.time(ChatStageMetrics.EXECUTE_INTENT, session.getProvidedIntentField(),
+                () -> intentExecutor.executeIntent(session));
         if (response == null) {
             log.error("Intent execution returned null");
             return new ChatResponse(
@@ -118,6 +151,13 @@ public class ChatServiceImpl implements ChatService {
         return response;
     }
 
+    private void fillSlots(NormalizedQuery userInput) {
+        stageMetrics.time(ChatStageMetrics.SLOT_FILLING, userInput, () -> {
+            fullyAndPartiallyMatched.updateSessionWithRequiredFields(userInput, session, queryTokenUtil);
+            return session.getProvidedIntentField();
+        });
+    }
+
     private String getMissingFieldPrompt() {
         for (String field : session.getRequiredIntentFields()) {
             if (!session.getProvidedIntentField().containsKey(field)) {
@@ -125,7 +165,7 @@ public class ChatServiceImpl implements ChatService {
                 return switch (field) {
                     case "service" -> buildServicePrompt();
                     case "operation" -> buildOperationPrompt();
-                    case "environment" -> "Which environment? Options: dev, sit, uat, prod";
+                    case "environment" -> "Which environment? Options: " + String.join(", ", lexicon.getEnvironments());
                     case "correlationId" ->
                             "Please provide the correlation ID (UUID or token).\nExample: 550e8400-e29b-41d4-a716-465400";
                     default -> "Provide " + field;
@@ -159,10 +199,8 @@ public class ChatServiceImpl implements ChatService {
                 : "Which operation? Available operations for " + service + ":\n" + String.join("\n", operations);
     }
 
-    private String preprocessQuery(String query) {
-        return queryTokenUtil.checkSpelling(
-                queryTokenUtil.stopWords(
-                        queryTokenUtil.removeSpecialCharacter(query)));
+    private NormalizedQuery preprocessQuery(String query) {
+        return queryTokenUtil.normalize(query);
     }
 
     private boolean hasMissingFields() {
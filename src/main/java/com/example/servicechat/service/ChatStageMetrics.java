@@ -0,0 +1,161 @@
+package com.example.servicechat.service;
+
+import com.example.servicechat.model.ChatTrace;
+import com.example.servicechat.model.IntentScore;
+import com.example.servicechat.model.ServiceMatch;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Per-stage latency of a chat turn, published as the {@code chat.stage} timer histogram tagged with
+ * {@code stage}, {@code intent} and {@code turn} ({@code first} or {@code continuation}).
+ * <p>
+ * A turn is opened with {@link #begin(boolean, boolean)} on the request thread; stages timed with {@link #time} anywhere
+ * below it on that thread are collected and recorded when the turn ends, once the intent is known. Stages
+ * may nest: service search and lemmatization run inside classification, slot filling or prompt building and
+ * are reported both on their own and as part of the enclosing stage. Outside of a turn, e.g. for batch
+ * classification, {@link #time} just runs the step.
+ * <p>
+ * A turn begun with tracing on also fills a {@link ChatTrace} with each stage's input and output, the intent
+ * scores and the service matches. Without tracing no trace object is created and inputs and outputs are
+ * never turned into strings.
+ */
+@Service
+public class ChatStageMetrics {
+
+    public static final String TIMER = "chat.stage";
+
+    public static final String NORMALIZE = "normalize";
+    public static final String SPELL_CORRECTION = "spell-correction";
+    public static final String CLASSIFICATION = "classification";
+    public static final String SERVICE_SEARCH = "service-search";
+    public static final String SLOT_FILLING = "slot-filling";
+    public static final String LEMMATIZATION = "lemmatization";
+    public static final String PROMPT = "prompt";
+    public static final String EXECUTE_INTENT = "execute-intent";
+
+    private final MeterRegistry registry;
+    private final ThreadLocal<Turn> current = new ThreadLocal<>();
+
+    public ChatStageMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.registry = meterRegistry.getIfAvailable();
+    }
+
+    /** Starts collecting the stages of a turn on the current thread. */
+    public Turn begin(boolean firstTurn, boolean trace) {
+        Turn turn = new Turn(firstTurn, trace ? new ChatTrace() : null);
+        current.set(turn);
+        return turn;
+    }
+
+    /** Records the stages of {@code turn} under {@code intent} ({@code none} while there is none). */
+    public void end(Turn turn, String intent) {
+        current.remove();
+        if (turn.trace != null) {
+            turn.trace.setElapsedNanos(System.nanoTime() - turn.start);
+        }
+        if (registry == null) {
+            return;
+        }
+        String intentTag = intent == null || intent.isBlank() ? "none" : intent;
+        String turnTag = turn.firstTurn ? "first" : "continuation";
+        for (Stage stage : turn.stages) {
+            Timer.builder(TIMER)
+                    .description("Latency of one stage of a chat turn")
+                    .tag("stage", stage.name())
+                    .tag("intent", intentTag)
+                    .tag("turn", turnTag)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(stage.nanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public <T> T time(String stage, Supplier<T> step) {
+        return time(stage, null, step);
+    }
+
+    /** Times {@code step}; a traced turn also records {@code input} and the step's result. */
+    public <T> T time(String stage, Object input, Supplier<T> step) {
+        Turn turn = current.get();
+        if (turn == null) {
+            return step.get();
+        }
+        // Rendered up front: steps may change their input in place
+        String tracedInput = turn.trace != null ? describe(input) : null;
+        long start = System.nanoTime();
+        T result = null;
+        try {
+            result = step.get();
+            return result;
+        } finally {
+            long nanos = System.nanoTime() - start;
+            turn.stages.add(new Stage(stage, nanos));
+            if (turn.trace != null) {
+                turn.trace.getStages().add(new ChatTrace.Stage(stage, tracedInput, describe(result), nanos));
+            }
+        }
+    }
+
+    /** Times {@code step}, which changes {@code input} in place; a traced turn records it before and after. */
+    public void time(String stage, Object input, Runnable step) {
+        time(stage, input, () -> {
+            step.run();
+            return input;
+        });
+    }
+
+    public void traceIntentScores(List<IntentScore> scores) {
+        Turn turn = current.get();
+        if (turn != null && turn.trace != null) {
+            turn.trace.setIntentScores(scores);
+        }
+    }
+
+    public void traceServiceMatches(List<ServiceMatch> matches) {
+        Turn turn = current.get();
+        if (turn != null && turn.trace != null) {
+            turn.trace.setServiceMatches(matches);
+        }
+    }
+
+    private static String describe(Object value) {
+        if (value instanceof Object[] array) {
+            return Arrays.toString(array);
+        }
+        return value == null ? null : value.toString();
+    }
+
+    /** Stages of one chat turn, in the order they finished. */
+    public static final class Turn {
+        private final boolean firstTurn;
+        private final ChatTrace trace;
+        private final long start = System.nanoTime();
+        private final List<Stage> stages = new ArrayList<>();
+
+        private Turn(boolean firstTurn, ChatTrace trace) {
+            this.firstTurn = firstTurn;
+            this.trace = trace;
+        }
+
+        public List<Stage> getStages() {
+            return stages;
+        }
+
+        /** The trace of this turn, or {@code null} when it is not traced. */
+        public ChatTrace getTrace() {
+            return trace;
+        }
+    }
+
+    public record Stage(String name, long nanos) {
+    }
+}
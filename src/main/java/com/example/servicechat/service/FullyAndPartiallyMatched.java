@@ -1,32 +1,37 @@
 package com.example.servicechat.service;
 
-import com.example.servicechat.config.ChatConfig;
+import com.example.servicechat.model.NormalizedQuery;
+import com.example.servicechat.model.ServiceMatch;
 import com.example.servicechat.model.SessionState;
 import com.example.servicechat.utility.GenerateQueryToken;
-import com.example.servicechat.utility.JsonMapLoader;
-import edu.stanford.nlp.ling.CoreAnnotations;
-import edu.stanford.nlp.ling.CoreLabel;
-import edu.stanford.nlp.pipeline.Annotation;
-import edu.stanford.nlp.util.CoreMap;
+import com.example.servicechat.utility.Lexicon;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.lang.invoke.MethodHandles;
 import java.util.*;
 import java.util.regex.Matcher;
 
-import static com.example.servicechat.constants.AppConstants.*;
+import static com.example.servicechat.constants.AppConstants.PARTIAL_UUID_REGEX;
+import static com.example.servicechat.constants.AppConstants.UUID_REGEX;
 
 @Service
 public class FullyAndPartiallyMatched {
 
     private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
-    private final Map<String, List<String>> serviceOperations = JsonMapLoader.load("service-operation.json");
     @Autowired
-    private ChatConfig chatConfig;
+    private Lexicon lexicon;
+    @Autowired
+    private Lemmatizer lemmatizer;
+
+    @Value("${chat.service-match.min-score:2.0}")
+    private float minServiceScore;
+    @Value("${chat.service-match.winner-ratio:2.0}")
+    private float winnerRatio;
 
     public static Optional<String> extractCorrelationId(String text) {
         if (text == null || text.isBlank()) {
@@ -43,8 +48,9 @@ public class FullyAndPartiallyMatched {
         return Optional.empty();
     }
 
-    public void updateSessionWithRequiredFields(String text, SessionState session, GenerateQueryToken queryTokenUtil) {
-        List<String> tokens = Arrays.stream(text.split(" ")).toList();
+    public void updateSessionWithRequiredFields(NormalizedQuery query, SessionState session, GenerateQueryToken queryTokenUtil) {
+        String text = query.getText();
+        List<String> tokens = Arrays.asList(query.getTokens());
         for (String field : session.getRequiredIntentFields()) {
             if (!session.getProvidedIntentField().containsKey(field)) {
                 switch (field) {
@@ -63,10 +69,10 @@ public class FullyAndPartiallyMatched {
         if (session.getProvidedIntentField().containsKey("scanType")) return;
 
         String userText = session.getCurrentUserText() != null ? session.getCurrentUserText() : session.getActualInitialUserText();
-        Matcher matcher = SCAN_TYPE.matcher(userText);
-        if (matcher.find()) {
-            log.info("Found: {}", matcher.group());
-            session.getProvidedIntentField().put("scanType", matcher.group());
+        Optional<String> scanType = lexicon.findScanType(userText);
+        if (scanType.isPresent()) {
+            log.info("Found: {}", scanType.get());
+            session.getProvidedIntentField().put("scanType", scanType.get());
         } else {
             log.info("No match found in: {}", userText);
         }
@@ -76,14 +82,30 @@ public class FullyAndPartiallyMatched {
 
         if (entities.containsKey("service")) return;
 
-        List<String> suggestions = queryTokenUtil.getSuggestedServices(text);
-        for (String svc : suggestions) {
-            String normalized = svc.replaceAll("[-\\s]+", " ").trim();
+        List<ServiceMatch> matches = queryTokenUtil.getServiceMatches(text);
+        for (ServiceMatch match : matches) {
+            String normalized = match.getServiceId().replaceAll("[-\\s]+", " ").trim();
             if (normalized.equalsIgnoreCase(text)) {
                 entities.put("service", normalized.replaceAll(" ", "-"));
-                break;
+                return;
             }
         }
+        if (isClearWinner(matches)) {
+            log.info("Service {} resolved with score {}", matches.get(0).getServiceId(), matches.get(0).getScore());
+            entities.put("service", matches.get(0).getServiceId());
+        }
+    }
+
+    /**
+     * The top match scores at least {@code chat.service-match.min-score} and beats the runner-up by
+     * {@code chat.service-match.winner-ratio}, so a partly typed or misspelled name is taken without asking
+     * while close candidates are still offered to the user.
+     */
+    private boolean isClearWinner(List<ServiceMatch> matches) {
+        if (matches.isEmpty() || matches.get(0).getScore() < minServiceScore) {
+            return false;
+        }
+        return matches.size() == 1 || matches.get(0).getScore() >= winnerRatio * matches.get(1).getScore();
     }
 
     private void resolveOperation(Map<String, String> entities, List<String> tokens) {
@@ -120,7 +142,7 @@ public class FullyAndPartiallyMatched {
 
     private String matchOperation(List<String> tokens, String service) {
         if (service == null) return null;
-        List<String> ops = serviceOperations.getOrDefault(service, List.of());
+        List<String> ops = lexicon.getOperations(service);
 
         for (String op : ops) {
             boolean hasExactMatch = false;
@@ -139,19 +161,19 @@ public class FullyAndPartiallyMatched {
 
     private String matchEnvironment(List<String> tokens) {
         return tokens.stream()
-                .filter(ENVIRONMENTS::contains)
+                .filter(lexicon::isEnvironment)
                 .findFirst()
                 .orElse(null);
     }
 
     public List<String> getOperationsForService(String service) {
-        return serviceOperations.getOrDefault(service, List.of());
+        return lexicon.getOperations(service);
     }
 
     public List<String> getSuggestedOperations(String text, String service) {
         if (text == null || text.isBlank() || service == null) return List.of();
 
-        List<String> ops = serviceOperations.getOrDefault(service, List.of());
+        List<String> ops = lexicon.getOperations(service);
         if (ops.isEmpty()) return List.of();
 
         String query = text.toLowerCase();
@@ -180,16 +202,7 @@ public class FullyAndPartiallyMatched {
     }
 
     private List<String> tokenize(String text) {
-        Annotation annotation = new Annotation(text.toLowerCase());
-        chatConfig.getPipeline().annotate(annotation);
-
-        List<String> tokens = new ArrayList<>();
-        for (CoreMap sentence : annotation.get(CoreAnnotations.SentencesAnnotation.class)) {
-            for (CoreLabel token : sentence.get(CoreAnnotations.TokensAnnotation.class)) {
-                tokens.add(token.lemma());
-            }
-        }
-        return tokens;
+        return lemmatizer.lemmatize(text);
     }
 
     private int similarity(String a, String b) {
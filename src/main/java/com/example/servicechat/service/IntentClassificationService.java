@@ -0,0 +1,198 @@
+package com.example.servicechat.service;
+
+import com.example.servicechat.classification.ExactPhraseIndex;
+import com.example.servicechat.classification.IntentClassifier;
+import com.example.servicechat.model.IntentPrediction;
+import com.example.servicechat.model.IntentScore;
+import com.example.servicechat.model.NormalizedQuery;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.lang.invoke.MethodHandles;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Routes classification to the backend selected by {@code chat.classifier.backend}. Queries equal to a known
+ * training phrase are answered from {@link ExactPhraseIndex} without running a model. When a shadow backend is
+ * configured, a sampled fraction of queries is also sent to it off the request thread, and the two answers
+ * are compared so a backend switch can be judged on real traffic.
+ * <p>
+ * The comparison is published to Micrometer: {@code chat.classifier.latency} timers tagged with
+ * {@code backend} and {@code role} ({@code primary} or {@code shadow}), {@code chat.classifier.shadow.comparisons}
+ * tagged {@code outcome=agree|disagree}, and {@code chat.classifier.shadow.dropped} for samples skipped because
+ * the shadow queue was full.
+ */
+@Service
+public class IntentClassificationService {
+
+    private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private final ExactPhraseIndex exactPhrases;
+    private final IntentClassifier primary;
+    private final IntentClassifier shadow;
+    private final int topK;
+    private final double shadowSampleRate;
+    private final ExecutorService shadowExecutor;
+    // Null when no shadow backend is configured or there is no meter registry
+    private final Timer primaryLatency;
+    private final Timer shadowLatency;
+    private final Counter agreements;
+    private final Counter disagreements;
+    private final Counter dropped;
+
+    public IntentClassificationService(List<IntentClassifier> backends,
+                                       ExactPhraseIndex exactPhrases,
+                                       ObjectProvider<MeterRegistry> meterRegistry,
+                                       @Value("${chat.classifier.backend:weka}") String primaryName,
+                                       @Value("${chat.classifier.top-k:3}") int topK,
+                                       @Value("${chat.classifier.shadow.backend:}") String shadowName,
+                                       @Value("${chat.classifier.shadow.sample-rate:0.0}") double shadowSampleRate,
+                                       @Value("${chat.classifier.shadow.queue-capacity:100}") int queueCapacity) {
+        Map<String, IntentClassifier> byName = backends.stream()
+                .collect(Collectors.toMap(IntentClassifier::name, Function.identity()));
+        this.exactPhrases = exactPhrases;
+        this.primary = lookup(byName, primaryName);
+        this.topK = topK;
+        this.shadow = shadowName.isBlank() || shadowSampleRate <= 0 ? null : lookup(byName, shadowName);
+        this.shadowSampleRate = shadowSampleRate;
+
+        MeterRegistry registry = shadow == null ? null : meterRegistry.getIfAvailable();
+        this.primaryLatency = registry == null ? null : latencyTimer(registry, primary.name(), "primary");
+        this.shadowLatency = registry == null ? null : latencyTimer(registry, shadow.name(), "shadow");
+        this.agreements = registry == null ? null : comparisonCounter(registry, "agree");
+        this.disagreements = registry == null ? null : comparisonCounter(registry, "disagree");
+        this.dropped = registry == null ? null : Counter.builder("chat.classifier.shadow.dropped")
+                .description("Shadow comparisons skipped because the shadow queue was full")
+                .register(registry);
+
+        this.shadowExecutor = shadow == null ? null : new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "intent-shadow");
+            thread.setDaemon(true);
+            return thread;
+        }, (runnable, executor) -> increment(dropped));
+
+        log.info("Intent classifier backend: {}, shadow: {} (sample rate {})",
+                primary.name(), shadow == null ? "none" : shadow.name(), shadowSampleRate);
+    }
+
+    private static Timer latencyTimer(MeterRegistry registry, String backend, String role) {
+        return Timer.builder("chat.classifier.latency")
+                .description("Latency of one intent classification")
+                .tag("backend", backend)
+                .tag("role", role)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Counter comparisonCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("chat.classifier.shadow.comparisons")
+                .description("Intents of the shadow backend compared with those of the primary one")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    private static void record(Timer timer, long nanos) {
+        if (timer != null) {
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static IntentClassifier lookup(Map<String, IntentClassifier> byName, String name) {
+        IntentClassifier classifier = byName.get(name);
+        if (classifier == null) {
+            throw new IllegalStateException("Unknown intent classifier backend '" + name
+                    + "', available: " + byName.keySet());
+        }
+        return classifier;
+    }
+
+    public IntentPrediction predict(NormalizedQuery query) {
+        Optional<String> exact = exactPhrases.lookup(query);
+        if (exact.isPresent()) {
+            log.info("Exact training phrase match: {}", exact.get());
+            return new IntentPrediction(List.of(new IntentScore(exact.get(), 1.0)), true);
+        }
+        if (!primary.isReady()) {
+            log.warn("Intent classifier {} is not ready yet", primary.name());
+            return IntentPrediction.NONE;
+        }
+
+        long start = System.nanoTime();
+        IntentPrediction prediction = new IntentPrediction(primary.rank(query.getTokens(), topK), false);
+        long elapsed = System.nanoTime() - start;
+
+        if (shadow != null) {
+            record(primaryLatency, elapsed);
+            if (shadow.isReady() && ThreadLocalRandom.current().nextDouble() < shadowSampleRate) {
+                String intent = prediction.getIntent();
+                shadowExecutor.execute(() -> compareWithShadow(query.getText(), intent));
+            }
+        }
+        return prediction;
+    }
+
+    private void compareWithShadow(String query, String primaryIntent) {
+        try {
+            long start = System.nanoTime();
+            String shadowIntent = shadow.classify(query);
+            record(shadowLatency, System.nanoTime() - start);
+
+            boolean agreed = Objects.equals(primaryIntent, shadowIntent);
+            increment(agreed ? agreements : disagreements);
+            if (!agreed) {
+                log.info("Shadow disagreement for '{}': {}={}, {}={}",
+                        query, primary.name(), primaryIntent, shadow.name(), shadowIntent);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Shadow classifier {} failed for '{}'", shadow.name(), query, e);
+        }
+    }
+
+    public String getPrimaryBackend() {
+        return primary.name();
+    }
+
+    public boolean isReady() {
+        return primary.isReady();
+    }
+
+    /** The shadow backend's name, if one is configured. */
+    public Optional<String> getShadowBackend() {
+        return shadow == null ? Optional.empty() : Optional.of(shadow.name());
+    }
+
+    public boolean isShadowReady() {
+        return shadow != null && shadow.isReady();
+    }
+
+    public long getModelVersion() {
+        return primary.modelVersion();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (shadowExecutor != null) {
+            shadowExecutor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.servicechat.service;
+
+import com.example.servicechat.classification.ExactPhraseIndex;
+import com.example.servicechat.classification.IntentModelSnapshot;
+import com.example.servicechat.classification.QueryClassifier;
+import com.example.servicechat.model.TrainingExample;
+import com.example.servicechat.model.TrainingResult;
+import com.example.servicechat.utility.GenerateQueryToken;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Online learning for the Weka intent model. Labeled utterances, including corrections of misclassified
+ * queries, are applied to the live model and then appended to a journal, and the journal is replayed at
+ * startup, so learned utterances survive restarts without editing {@code training.arff}. The journal lives
+ * in {@code chat.data-dir}, which must be kept across restarts. An entry that fails to replay is logged and
+ * skipped rather than failing the startup.
+ * <p>
+ * The journal uses the {@code intent<TAB>text} format of {@code intent-training-data.txt}; once reviewed it
+ * can be folded into the training data and deleted.
+ */
+@Service
+public class IntentLearningService {
+
+    private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private final QueryClassifier queryClassifier;
+    private final ExactPhraseIndex exactPhrases;
+    private final GenerateQueryToken queryTokenUtil;
+    private final Path journal;
+
+    public IntentLearningService(QueryClassifier queryClassifier,
+                                 ExactPhraseIndex exactPhrases,
+                                 GenerateQueryToken queryTokenUtil,
+                                 @Value("${chat.training.journal:${chat.data-dir:data}/training-journal.tsv}") Path journal) {
+        this.queryClassifier = queryClassifier;
+        this.exactPhrases = exactPhrases;
+        this.queryTokenUtil = queryTokenUtil;
+        this.journal = journal;
+    }
+
+    @PostConstruct
+    public void replayJournal() throws IOException {
+        if (!Files.exists(journal)) {
+            return;
+        }
+        Set<String> intents = queryClassifier.getIntents();
+        List<TrainingExample> examples = new ArrayList<>();
+        for (String line : Files.readAllLines(journal, StandardCharsets.UTF_8)) {
+            int tab = line.indexOf('\t');
+            if (tab <= 0) {
+                continue;
+            }
+            TrainingExample example = new TrainingExample(line.substring(0, tab), line.substring(tab + 1));
+            if (intents.contains(example.getIntent())) {
+                examples.add(example);
+            } else {
+                log.warn("Skipping journaled utterance with unknown intent '{}'", example.getIntent());
+            }
+        }
+        if (examples.isEmpty()) {
+            return;
+        }
+        try {
+            apply(examples);
+            log.info("Replayed {} learned utterances from {}", examples.size(), journal);
+        } catch (RuntimeException e) {
+            log.warn("Replaying {} as one update failed, replaying its utterances one by one", journal, e);
+            int replayed = 0;
+            for (TrainingExample example : examples) {
+                try {
+                    apply(List.of(example));
+                    replayed++;
+                } catch (RuntimeException entryFailure) {
+                    log.warn("Skipping journaled utterance '{}' for intent '{}'",
+                            example.getText(), example.getIntent(), entryFailure);
+                }
+            }
+            log.info("Replayed {} of {} learned utterances from {}", replayed, examples.size(), journal);
+        }
+    }
+
+    /**
+     * Learns the given utterances as one update and journals them once they are applied. Synchronized so the
+     * journal keeps the order in which updates reached the model.
+     *
+     * @throws IllegalArgumentException if there are no examples, or one has no text or an unknown intent; nothing is learned then
+     */
+    public synchronized TrainingResult learn(List<TrainingExample> examples) {
+        if (examples.isEmpty()) {
+            throw new IllegalArgumentException("No training examples");
+        }
+        Set<String> intents = queryClassifier.getIntents();
+        for (TrainingExample example : examples) {
+            if (example.getText() == null || example.getText().isBlank()) {
+                throw new IllegalArgumentException("Training example without text");
+            }
+            if (!intents.contains(example.getIntent())) {
+                throw new IllegalArgumentException("Unknown intent '" + example.getIntent() + "', expected one of " + intents);
+            }
+        }
+        IntentModelSnapshot model = apply(examples);
+        appendToJournal(examples);
+        return new TrainingResult(examples.size(), model.getVersion(), model.getVocabulary().size());
+    }
+
+    private IntentModelSnapshot apply(List<TrainingExample> examples) {
+        // Learn the text the classifier will actually see for a query, not the raw input
+        List<TrainingExample> preprocessed = examples.stream()
+                .map(example -> new TrainingExample(example.getIntent(), queryTokenUtil.preprocess(example.getText())))
+                .toList();
+        IntentModelSnapshot model = queryClassifier.learn(preprocessed);
+        // Only once the model took them, so a failed update leaves no phrases behind. The phrase index keys
+        // raw text the way it keys training phrases; the version bump above already retired cached resolutions
+        examples.forEach(example -> exactPhrases.learn(example.getText(), example.getIntent()));
+        return model;
+    }
+
+    private void appendToJournal(List<TrainingExample> examples) {
+        StringBuilder lines = new StringBuilder();
+        for (TrainingExample example : examples) {
+            lines.append(example.getIntent()).append('\t')
+                    .append(example.getText().replaceAll("\\s+", " ").trim()).append('\n');
+        }
+        try {
+            Files.createDirectories(journal.toAbsolutePath().getParent());
+            Files.writeString(journal, lines, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND,
+                    StandardOpenOption.SYNC);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not journal training examples to " + journal, e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.servicechat.service;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the primary intent classifier backend as the {@code intentModel} health component: out of service
+ * until it answers, up once it does. Part of the readiness group, so traffic is only routed to an instance
+ * whose primary backend is ready. A shadow backend only shows up in the details; it never serves answers, so
+ * a slow or failed shadow bootstrap does not take the instance out of rotation.
+ */
+@Component
+public class IntentModelHealthIndicator implements HealthIndicator {
+
+    private final IntentClassificationService classificationService;
+
+    public IntentModelHealthIndicator(IntentClassificationService classificationService) {
+        this.classificationService = classificationService;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder health = classificationService.isReady() ? Health.up() : Health.outOfService();
+        health.withDetail("backend", classificationService.getPrimaryBackend());
+        classificationService.getShadowBackend().ifPresent(shadow -> health
+                .withDetail("shadowBackend", shadow)
+                .withDetail("shadowReady", classificationService.isShadowReady()));
+        return health.build();
+    }
+}
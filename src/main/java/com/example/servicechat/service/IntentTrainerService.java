@@ -1,110 +1,131 @@
 package com.example.servicechat.service;
 
-import edu.stanford.nlp.classify.Classifier;
+import com.example.servicechat.classification.IntentClassifier;
+import com.example.servicechat.model.IntentScore;
 import edu.stanford.nlp.classify.ColumnDataClassifier;
 import edu.stanford.nlp.ling.Datum;
+import edu.stanford.nlp.stats.Counter;
+import edu.stanford.nlp.stats.Counters;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Properties;
-
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * CoreNLP {@link ColumnDataClassifier} intent backend.
+ * <p>
+ * The model is loaded or trained on a background thread so it never holds up application startup; until it
+ * is {@link State#READY} the backend answers with no prediction. Trained models are written to a writable
+ * cache directory ({@code chat.intent-model.cache-dir}) under a name derived from a hash of the training
+ * data and classifier settings, so a restart with unchanged data reuses the cached model instead of training.
+ */
 @Service("intentTrainerService")
-public class IntentTrainerService {
+public class IntentTrainerService implements IntentClassifier {
+
+    private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
     private static final String TRAINING_FILE = "intent-training-data.txt";
     private static final String MODEL_FILE = "intent-model.ser.gz";
 
-    private ColumnDataClassifier cdc;
+    public enum State { LOADING, READY, FAILED }
+
+    @Value("${chat.intent-model.cache-dir:${chat.data-dir:data}/intent-model}")
+    private Path cacheDir;
+
+    private volatile ColumnDataClassifier cdc;
+    private volatile State state = State.LOADING;
+    private final ExecutorService bootstrapExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "intent-model-bootstrap");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     @PostConstruct
     public void init() {
-        try {
-            File modelFile = getModelFile();
+        bootstrapExecutor.execute(this::bootstrap);
+    }
 
-            if (modelFile != null && modelFile.exists()) {
-                // Load existing model
-                loadModel(modelFile);
-                System.out.println("✓ Loaded existing model: " + modelFile.getAbsolutePath());
+    private void bootstrap() {
+        long start = System.nanoTime();
+        try {
+            ClassPathResource training = new ClassPathResource(TRAINING_FILE);
+            if (training.exists()) {
+                cdc = loadOrTrain(training);
             } else {
-                // Train and save new model
-                System.out.println("Model not found. Training new model...");
-                trainAndSaveModel();
+                log.info("No {} on the classpath, loading bundled model {}", TRAINING_FILE, MODEL_FILE);
+                cdc = loadBundledModel();
             }
+            state = State.READY;
+            log.info("Intent model ready in {} ms", (System.nanoTime() - start) / 1_000_000);
         } catch (Exception e) {
-            System.err.println("Error initializing IntentTrainerService: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("Failed to initialize intent model", e);
+            state = State.FAILED;
+            log.error("Failed to initialize intent model", e);
         }
     }
 
-    private File getModelFile() {
-        try {
-            ClassPathResource resource = new ClassPathResource(MODEL_FILE);
-            if (resource.exists()) {
-                return resource.getFile();
-            }
-        } catch (IOException e) {
-            // Ignore, will try file system
+    private ColumnDataClassifier loadOrTrain(ClassPathResource training) throws Exception {
+        byte[] trainingData;
+        try (InputStream in = training.getInputStream()) {
+            trainingData = in.readAllBytes();
         }
-
-        Path resourcePath = Paths.get("src/main/resources", MODEL_FILE);
-        if (Files.exists(resourcePath)) {
-            return resourcePath.toFile();
+        Path cached = cacheDir.resolve("intent-model-" + fingerprint(trainingData) + ".ser.gz");
+        if (Files.exists(cached)) {
+            log.info("Loading cached intent model {}", cached);
+            return ColumnDataClassifier.getClassifier(cached.toString());
         }
 
-        return null;
+        log.info("No cached model for the current training data, training a new one");
+        Files.createDirectories(cacheDir);
+        Path trainingFile = Files.createTempFile(cacheDir, "intent-training", ".txt");
+        Path partialModel = Files.createTempFile(cacheDir, "intent-model", ".partial.ser.gz");
+        try {
+            Files.write(trainingFile, trainingData);
+            ColumnDataClassifier trained = new ColumnDataClassifier(createProperties());
+            trained.trainClassifier(trainingFile.toString());
+            trained.serializeClassifier(partialModel.toString());
+            // Another instance may have finished first; both wrote the same model, so either file wins
+            Files.move(partialModel, cached, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            log.info("Model trained and cached -> {}", cached);
+            return trained;
+        } finally {
+            Files.deleteIfExists(trainingFile);
+            Files.deleteIfExists(partialModel);
+        }
     }
 
-    private void loadModel(File modelFile) throws Exception {
-        cdc = ColumnDataClassifier.getClassifier(modelFile.getAbsolutePath());
+    private ColumnDataClassifier loadBundledModel() throws IOException, ClassNotFoundException {
+        ClassPathResource resource = new ClassPathResource(MODEL_FILE);
+        if (!resource.exists()) {
+            throw new FileNotFoundException("Neither " + TRAINING_FILE + " nor " + MODEL_FILE
+                    + " found on the classpath. Add training data in format: intent_name\\ttraining text");
+        }
+        try (ObjectInputStream in = new ObjectInputStream(
+                new BufferedInputStream(new GZIPInputStream(resource.getInputStream())))) {
+            return ColumnDataClassifier.getClassifier(in);
+        }
     }
 
-    private void trainAndSaveModel() throws Exception {
-        InputStream trainingStream = null;
-
-        try {
-            // Try to load training file from classpath
-            ClassPathResource resource = new ClassPathResource(TRAINING_FILE);
-            if (!resource.exists()) {
-                throw new FileNotFoundException(
-                        "Training file not found in classpath: " + TRAINING_FILE +
-                                "\nPlease create the file in src/main/resources/ with training data in format:\n" +
-                                "intent_name\\ttraining text"
-                );
-            }
-
-            trainingStream = resource.getInputStream();
-            System.out.println("✓ Found training file in classpath: " + TRAINING_FILE);
-
-            // Create temporary file for training
-            Path tempTrainingFile = Files.createTempFile("intent-training", ".txt");
-            Files.copy(trainingStream, tempTrainingFile, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-
-            // Initialize classifier and train
-            cdc = new ColumnDataClassifier(createProperties());
-            cdc.trainClassifier(tempTrainingFile.toString());
-
-            // Save model to file system
-            Path resourcePath = Paths.get("src/main/resources", MODEL_FILE);
-            Files.createDirectories(resourcePath.getParent());
-
-            cdc.serializeClassifier(resourcePath.toString());
-
-            System.out.println("✓ Model trained and saved → " + resourcePath.toAbsolutePath());
-
-            // Cleanup
-            Files.deleteIfExists(tempTrainingFile);
-
-        } finally {
-            if (trainingStream != null) {
-                trainingStream.close();
-            }
-        }
+    /** Hash of the training data and the classifier settings; a change in either needs a new model. */
+    private String fingerprint(byte[] trainingData) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(trainingData);
+        digest.update(new TreeMap<>(createProperties()).toString().getBytes());
+        return HexFormat.of().formatHex(digest.digest()).substring(0, 16);
     }
 
     private Properties createProperties() {
@@ -130,46 +151,85 @@ public class IntentTrainerService {
         return props;
     }
 
-    public String classifyIntent(String text) {
-        if (cdc == null) {
-            throw new IllegalStateException("Model not initialized. Check application logs for errors.");
+    public State getState() {
+        return state;
+    }
+
+    @Override
+    public boolean isReady() {
+        return state == State.READY;
+    }
+
+    @Override
+    public String name() {
+        return "corenlp";
+    }
+
+    @Override
+    public String classify(String query) {
+        return isReady() ? classifyIntent(query) : null;
+    }
+
+    @Override
+    public List<IntentScore> rank(String query, int limit) {
+        if (!isReady()) {
+            return List.of();
         }
+        Counter<String> scores = getConfidenceScores(query);
+        if (scores == null || scores.size() == 0) {
+            return List.of();
+        }
+        // ColumnDataClassifier scores are log-linear; a softmax turns them into probabilities
+        double max = Counters.max(scores);
+        double sum = 0;
+        for (double score : scores.values()) {
+            sum += Math.exp(score - max);
+        }
+        double total = sum;
+        return Counters.toSortedList(scores).stream()
+                .limit(limit)
+                .map(intent -> new IntentScore(intent, Math.exp(scores.getCount(intent) - max) / total))
+                .toList();
+    }
 
+    public String classifyIntent(String text) {
+        ColumnDataClassifier model = getModel();
         try {
             // For classification, we need to create a datum with just the text (no label)
             // Use a dummy tab to create proper format: "<unknown>\ttext"
             String formattedText = "unknown\t" + text;
-            Datum<String, String> datum = cdc.makeDatumFromLine(formattedText);
-        return cdc.classOf(datum);
+            Datum<String, String> datum = model.makeDatumFromLine(formattedText);
+            return model.classOf(datum);
         } catch (Exception e) {
-            System.err.println("Error classifying intent for text: '" + text + "' - " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error classifying intent for text: '{}'", text, e);
             return null;
         }
     }
 
-    public edu.stanford.nlp.stats.Counter<String> getConfidenceScores(String text) {
-        if (cdc == null) {
-            throw new IllegalStateException("Model not initialized. Check application logs for errors.");
-        }
-
+    public Counter<String> getConfidenceScores(String text) {
+        ColumnDataClassifier model = getModel();
         try {
             // For classification, we need to create a datum with just the text (no label)
             String formattedText = "unknown\t" + text;
-            Datum<String, String> datum = cdc.makeDatumFromLine(formattedText);
-        return cdc.scoresOf(datum);
+            Datum<String, String> datum = model.makeDatumFromLine(formattedText);
+            return model.scoresOf(datum);
         } catch (Exception e) {
-            System.err.println("Error getting confidence scores for text: '" + text + "' - " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error getting confidence scores for text: '{}'", text, e);
             return null;
         }
     }
 
     // Getter for the classifier (for compatibility with existing code)
     public ColumnDataClassifier getModel() {
-        if (cdc == null) {
-            throw new IllegalStateException("Model not initialized. Check application logs for errors.");
+        ColumnDataClassifier model = cdc;
+        if (model == null) {
+            throw new IllegalStateException("Model not initialized (state " + state + "). Check application logs.");
         }
-        return cdc;
+        return model;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        bootstrapExecutor.shutdownNow();
     }
-}
\ No newline at end of file
+}
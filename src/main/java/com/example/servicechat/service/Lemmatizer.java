@@ -0,0 +1,123 @@
+package com.example.servicechat.service;
+
+import com.example.servicechat.config.ChatConfig;
+import com.example.servicechat.utility.Lexicon;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.process.Morphology;
+import edu.stanford.nlp.util.CoreMap;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.lang.invoke.MethodHandles;
+import java.util.*;
+
+/**
+ * Word lemmatization without running a CoreNLP pipeline per request. Lemmas of the catalog vocabulary
+ * (service and operation names) and of {@code dictionary.txt} are computed once at startup with CoreNLP's
+ * {@link Morphology} rules, which need no models. Other words are lemmatized by the configured CoreNLP profile on
+ * first sight and kept in a bounded cache, so the pipeline is only loaded if such a word ever shows up. The
+ * table is recomputed when the {@link Lexicon} reloads.
+ */
+@Service
+public class Lemmatizer {
+
+    private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private final NlpPipelinePool nlpPipelines;
+    private final Lexicon lexicon;
+    private final ChatStageMetrics stageMetrics;
+    private final String fallbackProfile;
+    private final Cache<String, String> misses;
+    private volatile Map<String, String> lemmas = Map.of();
+
+    public Lemmatizer(NlpPipelinePool nlpPipelines,
+                      Lexicon lexicon,
+                      ChatStageMetrics stageMetrics,
+                      ObjectProvider<MeterRegistry> meterRegistry,
+                      @Value("${chat.lemmatizer.fallback-profile:" + ChatConfig.LEMMA_ONLY + "}") String fallbackProfile,
+                      @Value("${chat.lemmatizer.cache-size:10000}") long cacheSize) {
+        this.nlpPipelines = nlpPipelines;
+        this.lexicon = lexicon;
+        this.stageMetrics = stageMetrics;
+        this.fallbackProfile = fallbackProfile;
+        this.misses = Caffeine.newBuilder().maximumSize(cacheSize).recordStats().build();
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, misses, "lemma-fallback"));
+    }
+
+    @PostConstruct
+    public void init() {
+        Set<String> vocabulary = new TreeSet<>(lexicon.getCatalogWords());
+        vocabulary.addAll(lexicon.getDictionary());
+
+        Map<String, String> table = new HashMap<>();
+        for (String word : vocabulary) {
+            table.put(word, Morphology.lemmaStatic(word, guessTag(word)));
+        }
+        lemmas = Map.copyOf(table);
+        log.info("Precomputed {} lemmas for the catalog vocabulary and dictionary", lemmas.size());
+    }
+
+    @EventListener
+    public void onLexiconReloaded(Lexicon.ReloadedEvent event) {
+        init();
+    }
+
+    /**
+     * Catalog words come without a sentence to tag, so the tag is guessed from the suffix. Untagged
+     * {@link Morphology#stem} over-applies Latin plurals ("api" -> "apus"); this stays close to what the
+     * tagger picks for a lone word.
+     */
+    private static String guessTag(String word) {
+        if (word.endsWith("ed")) {
+            return "VBD";
+        }
+        return word.endsWith("s") && !word.endsWith("ss") ? "NNS" : "NN";
+    }
+
+    /** Lemmatizes whitespace separated, lowercased text, one lemma per token. */
+    public List<String> lemmatize(String text) {
+        List<String> result = new ArrayList<>();
+        for (String token : text.toLowerCase().split("\\s+")) {
+            if (!token.isEmpty()) {
+                result.add(lemma(token));
+            }
+        }
+        return result;
+    }
+
+    /** Returns the lemma of a lowercased word; the word itself when CoreNLP is saturated (not cached then). */
+    public String lemma(String word) {
+        String lemma = lemmas.get(word);
+        if (lemma != null) {
+            return lemma;
+        }
+        try {
+            return misses.get(word, this::annotate);
+        } catch (NlpPipelinePool.NlpUnavailableException e) {
+            log.warn("No lemma for '{}': {}", word, e.getMessage());
+            return word;
+        }
+    }
+
+    private String annotate(String word) {
+        Annotation annotation = stageMetrics.time(ChatStageMetrics.LEMMATIZATION, word,
+                () -> nlpPipelines.annotate(fallbackProfile, word));
+        for (CoreMap sentence : annotation.get(CoreAnnotations.SentencesAnnotation.class)) {
+            for (CoreLabel token : sentence.get(CoreAnnotations.TokensAnnotation.class)) {
+                return token.lemma();
+            }
+        }
+        return word;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.servicechat.service;
+
+import com.example.servicechat.config.ChatConfig;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.lang.invoke.MethodHandles;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs CoreNLP annotation on a small, bounded pool of worker threads instead of on request threads. Each
+ * worker owns its own pipeline per profile, so no pipeline is ever shared between threads. The queue in front
+ * of the workers is bounded and every call has a timeout: when NLP is saturated, callers get an
+ * {@link NlpUnavailableException} right away instead of piling up on Tomcat threads.
+ * <p>
+ * Queue depth, active workers, rejections and timeouts are published as {@code chat.nlp.*} meters.
+ */
+@Service
+public class NlpPipelinePool {
+
+    private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private final ChatConfig chatConfig;
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    /** Pipelines of the current worker thread, by profile. */
+    private final ThreadLocal<Map<String, StanfordCoreNLP>> workerPipelines = ThreadLocal.withInitial(HashMap::new);
+
+    // Profiles to build at startup; all others are built on first use
+    @Value("${chat.nlp.preload:}")
+    private List<String> preload;
+
+    public NlpPipelinePool(ChatConfig chatConfig,
+                           ObjectProvider<MeterRegistry> meterRegistry,
+                           @Value("${chat.nlp.pool.size:2}") int poolSize,
+                           @Value("${chat.nlp.pool.queue-capacity:32}") int queueCapacity,
+                           @Value("${chat.nlp.pool.timeout:2s}") Duration timeout) {
+        this.chatConfig = chatConfig;
+        this.timeout = timeout;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "nlp-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+
+        meterRegistry.ifAvailable(registry -> {
+            Gauge.builder("chat.nlp.queue.size", executor, e -> e.getQueue().size()).register(registry);
+            Gauge.builder("chat.nlp.active", executor, ThreadPoolExecutor::getActiveCount).register(registry);
+            Gauge.builder("chat.nlp.pool.size", executor, ThreadPoolExecutor::getMaximumPoolSize).register(registry);
+            FunctionCounter.builder("chat.nlp.rejected", rejected, LongAdder::sum).register(registry);
+            FunctionCounter.builder("chat.nlp.timeouts", timedOut, LongAdder::sum).register(registry);
+        });
+        log.info("CoreNLP pool: {} workers, queue capacity {}, timeout {}", poolSize, queueCapacity, timeout);
+    }
+
+    @PostConstruct
+    public void init() throws Exception {
+        for (String profile : preload) {
+            if (!profile.isBlank()) {
+                // Loading models takes longer than a call may; wait for it without the call timeout
+                executor.submit(task(profile.trim(), "")).get();
+            }
+        }
+    }
+
+    /**
+     * Annotates {@code text} with the pipeline of {@code profile} on a pool worker.
+     *
+     * @throws NlpUnavailableException if the pool is saturated or the call does not finish within the timeout
+     */
+    public Annotation annotate(String profile, String text) {
+        Future<Annotation> result;
+        try {
+            result = executor.submit(task(profile, text));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new NlpUnavailableException("CoreNLP pool is saturated (" + executor.getQueue().size() + " queued)");
+        }
+        try {
+            return result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            // Drops the call if it is still queued; a running annotation finishes and its result is discarded
+            result.cancel(false);
+            throw new NlpUnavailableException("CoreNLP annotation timed out after " + timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NlpUnavailableException("Interrupted while waiting for CoreNLP");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("CoreNLP annotation failed", e.getCause());
+        }
+    }
+
+    private Callable<Annotation> task(String profile, String text) {
+        return () -> {
+            Annotation annotation = new Annotation(text);
+            workerPipelines.get().computeIfAbsent(profile, chatConfig::createPipeline).annotate(annotation);
+            return annotation;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** CoreNLP could not serve the call in time; callers should degrade rather than retry. */
+    public static class NlpUnavailableException extends RuntimeException {
+        public NlpUnavailableException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.servicechat.service;
+
+import com.example.servicechat.model.IntentPrediction;
+import com.example.servicechat.model.NormalizedQuery;
+import com.example.servicechat.model.ServiceMatch;
+import com.example.servicechat.utility.Lexicon;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.lang.invoke.MethodHandles;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Bounded caches of what a normalized query resolves to: the intent prediction of an opening query and the
+ * services matching a query. Queries repeat a lot, so most of them skip classification and the Lucene
+ * service search. The two are cached apart, so looking up services never runs a classification.
+ * <p>
+ * Predictions are keyed by the query together with the model version, and service matches by the query
+ * together with the lexicon and catalog versions: the lexicon switches to a new catalog before the index has
+ * caught up, so both must be part of the key. Retraining, online learning or a catalog change thus make old
+ * entries unreachable instead of serving stale answers; those entries then age out through the size and TTL
+ * limits. Only live chat fills the caches; batch classification bypasses them so a large batch cannot evict
+ * the chat's entries. Hit and miss counts are published to Micrometer as the {@code cache.*} meters tagged
+ * {@code cache=query-resolution} and {@code cache=service-matches}.
+ */
+@Service
+public class QueryResolutionCache {
+
+    private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private final IntentClassificationService classifier;
+    private final ServiceMatcher serviceMatcher;
+    private final Lexicon lexicon;
+    private final Cache<Key, IntentPrediction> cache;
+    private final Cache<ServiceKey, List<ServiceMatch>> serviceCache;
+
+    private record Key(String query, long modelVersion) {
+    }
+
+    private record ServiceKey(String query, long lexiconVersion, long catalogVersion) {
+    }
+
+    public QueryResolutionCache(IntentClassificationService classifier,
+                                ServiceMatcher serviceMatcher,
+                                Lexicon lexicon,
+                                ObjectProvider<MeterRegistry> meterRegistry,
+                                @Value("${chat.cache.resolution.max-size:10000}") long maxSize,
+                                @Value("${chat.cache.resolution.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.classifier = classifier;
+        this.serviceMatcher = serviceMatcher;
+        this.lexicon = lexicon;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.serviceCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        meterRegistry.ifAvailable(registry -> {
+            CaffeineCacheMetrics.monitor(registry, cache, "query-resolution");
+            CaffeineCacheMetrics.monitor(registry, serviceCache, "service-matches");
+        });
+        log.info("Query resolution cache: max {} entries, expire after {}", maxSize, expireAfterWrite);
+    }
+
+    public IntentPrediction resolve(NormalizedQuery query) {
+        Key key = new Key(query.getText(), classifier.getModelVersion());
+        IntentPrediction cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        IntentPrediction prediction = classifier.predict(query);
+        // A backend that is still loading answers with no prediction; that must not outlive the loading phase
+        if (classifier.isReady()) {
+            cache.put(key, prediction);
+        }
+        return prediction;
+    }
+
+    /** Services matching the normalized query text, best first. */
+    public List<ServiceMatch> findServices(String query) {
+        ServiceKey key = new ServiceKey(query, lexicon.getVersion(), serviceMatcher.getCatalogVersion());
+        return serviceCache.get(key, k -> List.copyOf(serviceMatcher.findMatchingServices(query)));
+    }
+}
@@ -1,64 +1,153 @@
 package com.example.servicechat.service;
 
-import org.apache.lucene.index.DirectoryReader;
-import org.apache.lucene.search.spell.SpellChecker;
-import org.apache.lucene.store.FSDirectory;
+import com.example.servicechat.utility.Lexicon;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.Arrays;
-import java.util.Comparator;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
 
+/**
+ * Spelling correction against the dictionary and the catalog vocabulary, using an in-memory
+ * {@link SymSpellIndex} built at startup. Every service and operation name of the catalog is part of the
+ * vocabulary, split at dashes and camel case, so catalog words are never "corrected" and their misspellings
+ * are corrected towards them.
+ * <p>
+ * Tokens that look like identifiers (numbers, UUID and other hex fragments, codes mixing letters and digits)
+ * skip correction entirely: they cost lookups and, once turned into dictionary words, can no longer be
+ * extracted as correlation ids.
+ * <p>
+ * The index lives only in memory, so nothing is shared with other instances or left behind in the working
+ * directory. It is versioned by a checksum of its words: when the {@link Lexicon} reloads, a new index is
+ * built off the request path if the words changed, and swapped in with a single volatile write. Lookups
+ * keep using the previous index until then.
+ */
 @Component
 public class QuerySpellCorrector {
 
-    private final SpellChecker spellChecker;
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
-    public QuerySpellCorrector() throws Exception {
-        Path indexDir = Paths.get("spell-index");
-        FSDirectory directory = FSDirectory.open(indexDir);
+    private static final int MIN_HEX_IDENTIFIER = 8;
 
-        if (!DirectoryReader.indexExists(directory)) {
-            new SpellIndexBuilder().buildSpellIndex();
-        }
+    private final Lexicon lexicon;
+    private final int maxEditDistance;
+    private final float accuracy;
+    private volatile SymSpellIndex index;
+    private String checksum;    // of the words in index, guarded by this
+
+    public QuerySpellCorrector(Lexicon lexicon,
+                               @Value("${chat.spelling.max-edit-distance:2}") int maxEditDistance,
+                               @Value("${chat.spelling.accuracy:0.7}") float accuracy) {
+        this.lexicon = lexicon;
+        this.maxEditDistance = maxEditDistance;
+        this.accuracy = accuracy;
+    }
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
 
-        this.spellChecker = new SpellChecker(directory);
-        this.spellChecker.setAccuracy(0.7f);
+    /**
+     * Lexicon reloads are published from its watcher thread, so the rebuild never runs on a request. Runs
+     * before the other listeners, which correct text with the new index.
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onLexiconReloaded(Lexicon.ReloadedEvent event) {
+        rebuild();
     }
 
-    public String correctQuery(String query) {
-        StringBuilder correctedQuery = new StringBuilder();
+    /** Builds and swaps in a new index unless the words are those of the current one. */
+    public synchronized void rebuild() {
+        SortedSet<String> words = new TreeSet<>(lexicon.getDictionary());
+        words.addAll(lexicon.getCatalogWords());
+        String wordsChecksum = checksum(words);
+        if (wordsChecksum.equals(checksum)) {
+            LOGGER.info("Spelling index {} is up to date", checksum);
+            return;
+        }
+        long start = System.nanoTime();
+        index = new SymSpellIndex(words, maxEditDistance, accuracy);
+        checksum = wordsChecksum;
+        LOGGER.info("Spelling index {}: {} words ({} from the service catalog), max edit distance {}, built in {} ms",
+                checksum, index.size(), lexicon.getCatalogWords().size(), maxEditDistance,
+                (System.nanoTime() - start) / 1_000_000);
+    }
 
-        for (String word : query.toLowerCase().split("\\s+")) {
-            try {
-                // Step 1: Exact match check
-                if (spellChecker.exist(word)) {
-                    correctedQuery.append(word);
-                } else {
-                    // Step 2: Fallback to similar suggestions
-                    String[] suggestions = spellChecker.suggestSimilar(word, 5);
+    public synchronized String getChecksum() {
+        return checksum;
+    }
+
+    private static String checksum(SortedSet<String> words) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String word : words) {
+                digest.update(word.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 
-                    if (suggestions.length > 0) {
-                        // Prefer prefix matches first, then longest word
-                        String chosen = Arrays.stream(suggestions)
-                                .filter(s -> s.startsWith(word)) // prioritize prefix
-                                .findFirst()
-                                .orElse(Arrays.stream(suggestions)
-                                        .max(Comparator.comparingInt(String::length)) // fallback: longest
-                                        .orElse(suggestions[0]));
+    /**
+     * Replaces misspelled tokens in place; tokens must already be lowercase. Identifiers and words of the
+     * lexicon, catalog names included, are passed through.
+     */
+    public void correct(String[] tokens) {
+        for (int i = 0; i < tokens.length; i++) {
+            if (!isIdentifier(tokens[i]) && !lexicon.isKnownWord(tokens[i])) {
+                tokens[i] = correctWord(tokens[i]);
+            }
+        }
+    }
 
-                        correctedQuery.append(chosen);
-                    } else {
-                        correctedQuery.append(word); // no suggestion, keep original
-                    }
-                }
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+    /**
+     * A lowercase token containing a digit ("550e8400", "41d4", "2024"), or a run of at least eight hex
+     * letters ("deadbeef"), which no word in the vocabulary is.
+     */
+    static boolean isIdentifier(String token) {
+        boolean hexOnly = true;
+        for (int i = 0; i < token.length(); i++) {
+            char ch = token.charAt(i);
+            if (ch >= '0' && ch <= '9') {
+                return true;
             }
-            correctedQuery.append(" ");
+            if (ch < 'a' || ch > 'f') {
+                hexOnly = false;
+            }
+        }
+        return hexOnly && token.length() >= MIN_HEX_IDENTIFIER;
+    }
+
+    String correctWord(String word) {
+        SymSpellIndex current = index;
+        // Step 1: Exact match check
+        if (current.exist(word)) {
+            return word;
+        }
+        // Step 2: Fallback to similar suggestions
+        String[] suggestions = current.suggestSimilar(word, 5);
+        if (suggestions.length == 0) {
+            return word; // no suggestion, keep original
         }
-        return correctedQuery.toString().trim();
+        // Prefer prefix matches first, then longest word
+        return Arrays.stream(suggestions)
+                .filter(s -> s.startsWith(word)) // prioritize prefix
+                .findFirst()
+                .orElse(Arrays.stream(suggestions)
+                        .max(Comparator.comparingInt(String::length)) // fallback: longest
+                        .orElse(suggestions[0]));
     }
 }
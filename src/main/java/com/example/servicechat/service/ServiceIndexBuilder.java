@@ -1,51 +1,152 @@
 package com.example.servicechat.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.EdgeNGramTokenFilter;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
-import org.apache.lucene.index.IndexWriter;
-import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.*;
 import org.apache.lucene.search.similarities.BM25Similarity;
-import org.apache.lucene.store.ByteBuffersDirectory;
 import org.apache.lucene.store.Directory;
-import org.springframework.core.io.ClassPathResource;
+import org.apache.lucene.util.Bits;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
+/**
+ * Writes the service catalog into a Lucene index, one document per service. Besides the analyzed
+ * {@code name} and {@code ops} fields, {@code name_prefix} and {@code ops_prefix} hold every leading 2 to 20
+ * characters of each word, so a word the user has only started typing ("accou") still matches.
+ * <p>
+ * A long-lived writer from {@link #openWriter} is kept up to date with {@link #applyChanges}, which only
+ * touches the documents of services that were added, changed or removed. {@link #readCatalog} recovers the
+ * catalog an existing index holds from its stored fields, so a persistent index can be brought up to date
+ * the same way after a restart. Commits record {@link #SCHEMA_VERSION} in their user data: an index written
+ * with other fields or analysis must be rebuilt, as comparing catalogs cannot tell.
+ */
 @Component
 public class ServiceIndexBuilder {
 
-    public Directory buildIndex(StandardAnalyzer analyzer) throws IOException {
-        Directory directory = new ByteBuffersDirectory();
+    public static final String ID = "id";
+    public static final String NAME = "name";
+    public static final String OPS = "ops";
+    public static final String NAME_PREFIX = "name_prefix";
+    public static final String OPS_PREFIX = "ops_prefix";
+
+    /** Bump whenever the fields or their analysis change, so existing on-disk indexes are rebuilt. */
+    public static final String SCHEMA_VERSION = "2";
+    private static final String SCHEMA_KEY = "schema";
+
+    private static final int MIN_PREFIX = 2;
+    private static final int MAX_PREFIX = 20;
+
+    private final Analyzer analyzer = createAnalyzer();
+
+    /** Standard analysis for all fields but the prefix fields, which are edge n-grams of the standard tokens. */
+    private static Analyzer createAnalyzer() {
+        Analyzer edgeNGrams = new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName) {
+                Tokenizer tokenizer = new StandardTokenizer();
+                TokenStream tokens = new LowerCaseFilter(tokenizer);
+                return new TokenStreamComponents(tokenizer, new EdgeNGramTokenFilter(tokens, MIN_PREFIX, MAX_PREFIX, true));
+            }
+        };
+        return new PerFieldAnalyzerWrapper(new StandardAnalyzer(), Map.of(NAME_PREFIX, edgeNGrams, OPS_PREFIX, edgeNGrams));
+    }
+
+    public Analyzer getAnalyzer() {
+        return analyzer;
+    }
+
+    /** Commits the pending changes of {@code writer}, recording the schema they were written with. */
+    public void commit(IndexWriter writer) throws IOException {
+        writer.setLiveCommitData(Map.of(SCHEMA_KEY, SCHEMA_VERSION).entrySet());
+        writer.commit();
+    }
+
+    /** Whether the last commit of {@code writer}'s index was written with the current schema. */
+    public boolean hasCurrentSchema(IndexWriter writer) {
+        Iterable<Map.Entry<String, String>> commitData = writer.getLiveCommitData();
+        if (commitData != null) {
+            for (Map.Entry<String, String> entry : commitData) {
+                if (SCHEMA_KEY.equals(entry.getKey())) {
+                    return SCHEMA_VERSION.equals(entry.getValue());
+                }
+            }
+        }
+        return false;
+    }
+
+    /** A writer over the index in {@code directory}, creating it if there is none yet. */
+    public IndexWriter openWriter(Directory directory) throws IOException {
         IndexWriterConfig config = new IndexWriterConfig(analyzer);
         config.setSimilarity(new BM25Similarity());
+        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        return new IndexWriter(directory, config);
+    }
+
+    /**
+     * Brings an index holding {@code from} to {@code to}: services that are new or whose operations changed
+     * get their document replaced by id, services no longer in the catalog are deleted and the rest is left
+     * alone. Nothing is committed. Returns the number of services touched.
+     */
+    public int applyChanges(IndexWriter writer, Map<String, List<String>> from, Map<String, List<String>> to)
+            throws IOException {
+        int changes = 0;
+        for (var entry : to.entrySet()) {
+            if (!Objects.equals(from.get(entry.getKey()), entry.getValue())) {
+                writer.updateDocument(new Term(ID, entry.getKey()), toDocument(entry.getKey(), entry.getValue()));
+                changes++;
+            }
+        }
+        for (String serviceName : from.keySet()) {
+            if (!to.containsKey(serviceName)) {
+                writer.deleteDocuments(new Term(ID, serviceName));
+                changes++;
+            }
+        }
+        return changes;
+    }
 
-        // Load JSON file from resources
-        ObjectMapper mapper = new ObjectMapper();
-        InputStream inputStream = new ClassPathResource("service-operation.json").getInputStream();
-        Map<String, List<String>> serviceData = mapper.readValue(inputStream, new TypeReference<>() {});
-
-        try (IndexWriter writer = new IndexWriter(directory, config)) {
-            for (var entry : serviceData.entrySet()) {
-                String serviceName = entry.getKey();
-                List<String> operations = entry.getValue();
-
-                Document doc = new Document();
-                doc.add(new StringField("id", serviceName, Field.Store.YES));
-                doc.add(new TextField("name", serviceName, Field.Store.YES));
-                String opsText = String.join(" ", operations);
-                doc.add(new TextField("ops", opsText, Field.Store.YES));
-                writer.addDocument(doc);
+    /**
+     * The catalog held by the index {@code writer} writes to, including its uncommitted changes. Operations
+     * are read back from the stored {@code ops} field, split at spaces.
+     */
+    public Map<String, List<String>> readCatalog(IndexWriter writer) throws IOException {
+        try (DirectoryReader reader = DirectoryReader.open(writer)) {
+            Map<String, List<String>> catalog = new HashMap<>(reader.numDocs() * 4 / 3 + 1);
+            StoredFields storedFields = reader.storedFields();
+            Bits liveDocs = MultiBits.getLiveDocs(reader);
+            Set<String> fields = Set.of(ID, OPS);
+            for (int doc = 0; doc < reader.maxDoc(); doc++) {
+                if (liveDocs != null && !liveDocs.get(doc)) {
+                    continue;
+                }
+                Document stored = storedFields.document(doc, fields);
+                String ops = stored.get(OPS);
+                catalog.put(stored.get(ID), ops == null || ops.isEmpty() ? List.of() : List.of(ops.split(" ")));
             }
+            return catalog;
         }
-        return directory;
     }
-}
\ No newline at end of file
+
+    private static Document toDocument(String serviceName, List<String> operations) {
+        Document doc = new Document();
+        doc.add(new StringField(ID, serviceName, Field.Store.YES));
+        doc.add(new TextField(NAME, serviceName, Field.Store.YES));
+        String opsText = String.join(" ", operations);
+        doc.add(new TextField(OPS, opsText, Field.Store.YES));
+        doc.add(new TextField(NAME_PREFIX, serviceName, Field.Store.NO));
+        doc.add(new TextField(OPS_PREFIX, opsText, Field.Store.NO));
+        return doc;
+    }
+}
@@ -1,49 +1,207 @@
 package com.example.servicechat.service;
 
 import com.example.servicechat.model.ServiceMatch;
+import com.example.servicechat.utility.Lexicon;
 import jakarta.annotation.PostConstruct;
-import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.document.Document;
-import org.apache.lucene.index.DirectoryReader;
-import org.apache.lucene.index.Term;
-import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
-import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.index.*;
 import org.apache.lucene.search.*;
 import org.apache.lucene.search.similarities.BM25Similarity;
+import org.apache.lucene.store.ByteBuffersDirectory;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.LockObtainFailedException;
+import org.apache.lucene.store.MMapDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Lucene search over the service catalog. The index is kept open by one long-lived {@link IndexWriter} and
+ * shared through a near-real-time {@link SearcherManager}: every search acquires the current searcher and
+ * releases it when done, so request threads reuse the same reader and its caches.
+ * <p>
+ * When the {@link Lexicon} reloads with a different catalog, only the documents of added, changed or removed
+ * services are written and committed, and the manager is refreshed from the writer; the index is never
+ * rebuilt for a catalog change. Searches already running finish on the searcher they acquired. Matches are
+ * checked against the lexicon's catalog, which switches first, so a service that was just removed is never
+ * returned while the index catches up.
+ * <p>
+ * With {@code chat.service-index.dir} set the index lives on disk in an {@link MMapDirectory} and is reused
+ * across restarts: at startup the catalog stored in the index is compared with the lexicon's and only the
+ * difference is written and committed, so an unchanged catalog of any size costs one pass over the stored
+ * ids. An index written with another {@link ServiceIndexBuilder#SCHEMA_VERSION} or that cannot be read is
+ * recreated; one locked by another process is replaced by an in-memory index for this run. Without the
+ * setting the index is built in memory at every start.
+ * <p>
+ * Searchers run the segments of large indexes in parallel, in slices of up to {@value #MAX_DOCS_PER_SLICE}
+ * documents on {@code chat.service-index.search-threads} threads; small catalogs fit in one slice and are
+ * searched on the request thread.
+ * <p>
+ * Queries are built straight from the analyzed tokens, without a query parser: user text is never read as
+ * query syntax, so words like "AND" or characters like {@code (} cannot make a search fail. A token that is
+ * not a word of any service name or operation is also looked up as a prefix and with a fuzzy match, so a
+ * partly typed or misspelled name is found in the same search.
+ */
 @Component
 public class ServiceMatcher {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final int MAX_DOCS_PER_SLICE = 25_000;
+    private static final int MAX_SEGMENTS_PER_SLICE = 5;
+
     private final ServiceIndexBuilder builder;
+    private final Lexicon lexicon;
+    private final Path indexDir;
+    private final ExecutorService searchExecutor;
+    private final Analyzer analyzer;
     private Directory index;
-    private StandardAnalyzer analyzer;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    private Map<String, List<String>> indexedCatalog;   // guarded by this
+    private volatile long catalogVersion;
 
-    public ServiceMatcher(ServiceIndexBuilder builder) {
+    public ServiceMatcher(ServiceIndexBuilder builder, Lexicon lexicon,
+                          @Value("${chat.service-index.dir:}") String indexDir,
+                          @Value("${chat.service-index.search-threads:0}") int searchThreads) {
         this.builder = builder;
+        this.lexicon = lexicon;
+        this.indexDir = indexDir.isBlank() ? null : Paths.get(indexDir);
+        this.analyzer = builder.getAnalyzer();
+        AtomicInteger threads = new AtomicInteger();
+        this.searchExecutor = Executors.newFixedThreadPool(
+                searchThreads > 0 ? searchThreads : Runtime.getRuntime().availableProcessors(), task -> {
+                    Thread thread = new Thread(task, "service-search-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
     }
 
     @PostConstruct
     public void init() throws IOException {
-        this.analyzer = new StandardAnalyzer();
-        this.index = builder.buildIndex(analyzer); // build index after bean creation
+        long start = System.nanoTime();
+        openIndex();
+        Map<String, List<String>> catalog = lexicon.getCatalog();
+        Map<String, List<String>> stored = builder.readCatalog(writer);
+        boolean rebuild = !stored.isEmpty() && !builder.hasCurrentSchema(writer);
+        if (rebuild) {
+            LOGGER.info("Service index {} was written with another schema, rebuilding it", indexDir);
+            writer.deleteAll();
+            stored = Map.of();
+        }
+        int changes = builder.applyChanges(writer, stored, catalog);
+        if (changes > 0 || rebuild) {
+            builder.commit(writer);
+        }
+        indexedCatalog = catalog;
+        searcherManager = new SearcherManager(writer, new SearcherFactory() {
+            @Override
+            public IndexSearcher newSearcher(IndexReader reader, IndexReader previousReader) {
+                IndexSearcher searcher = new IndexSearcher(reader, searchExecutor) {
+                    @Override
+                    protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+                        return slices(leaves, MAX_DOCS_PER_SLICE, MAX_SEGMENTS_PER_SLICE);
+                    }
+                };
+                searcher.setSimilarity(new BM25Similarity());
+                return searcher;
+            }
+        });
+        catalogVersion++;
+        LOGGER.info("Service index {}: {} services, {} of {} stored ones changed, ready in {} ms",
+                indexDir != null ? indexDir : "in memory", catalog.size(), changes, stored.size(),
+                (System.nanoTime() - start) / 1_000_000);
     }
 
+    private void openIndex() throws IOException {
+        if (indexDir != null) {
+            Files.createDirectories(indexDir);
+            index = new MMapDirectory(indexDir);
+            try {
+                writer = builder.openWriter(index);
+                return;
+            } catch (LockObtainFailedException e) {
+                LOGGER.warn("Service index {} is locked by another process, using an in-memory index", indexDir);
+                index.close();
+            } catch (CorruptIndexException | IndexFormatTooOldException | IndexFormatTooNewException e) {
+                LOGGER.warn("Service index {} cannot be read, recreating it", indexDir, e);
+                for (String file : index.listAll()) {
+                    index.deleteFile(file);
+                }
+                writer = builder.openWriter(index);
+                return;
+            }
+        }
+        index = new ByteBuffersDirectory();
+        writer = builder.openWriter(index);
+    }
+
+    @EventListener
+    public void onLexiconReloaded(Lexicon.ReloadedEvent event) throws IOException {
+        refresh();
+    }
+
+    /** Applies the catalog changes to the index, if any, and makes new searches see them. */
+    public synchronized void refresh() throws IOException {
+        Map<String, List<String>> catalog = lexicon.getCatalog();
+        if (catalog.equals(indexedCatalog)) {
+            return;
+        }
+        int changes = builder.applyChanges(writer, indexedCatalog, catalog);
+        builder.commit(writer);
+        searcherManager.maybeRefreshBlocking();
+        indexedCatalog = catalog;
+        catalogVersion++;
+        LOGGER.info("Service index refreshed: {} services, {} changed, catalog version {}",
+                catalog.size(), changes, catalogVersion);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+        index.close();
+        searchExecutor.shutdown();
+    }
+
+    /** Changes whenever new searches see another catalog, so cached matches of an older one are not reused. */
+    public long getCatalogVersion() {
+        return catalogVersion;
+    }
 
     private static final float NAME_BOOST = 3.0f;
     private static final float OPS_BOOST = 1.5f;
+    private static final float NAME_PREFIX_BOOST = 1.5f;
+    private static final float OPS_PREFIX_BOOST = 0.75f;
+    private static final float NAME_FUZZY_BOOST = 1.0f;
+    private static final float OPS_FUZZY_BOOST = 0.5f;
     private static final float MIN_SCORE_THRESHOLD = 0.3f;
     private static final int MAX_RESULTS = 3;
 
     public List<ServiceMatch> findMatchingServices(String userQuery) {
-        try (DirectoryReader reader = DirectoryReader.open(index)) {
-            IndexSearcher searcher = new IndexSearcher(reader);
-            searcher.setSimilarity(new BM25Similarity());
-
+        IndexSearcher searcher;
+        try {
+            searcher = searcherManager.acquire();
+        } catch (IOException e) {
+            throw new RuntimeException("Search error: " + e.getMessage(), e);
+        }
+        try {
             // Step 1: Exact match
             List<ServiceMatch> exactMatches = searchExactMatch(searcher, userQuery);
             if (!exactMatches.isEmpty()) {
@@ -55,6 +213,16 @@ public class ServiceMatcher {
 
         } catch (Exception e) {
             throw new RuntimeException("Search error: " + e.getMessage(), e);
+        } finally {
+            release(searcher);
+        }
+    }
+
+    private void release(IndexSearcher searcher) {
+        try {
+            searcherManager.release(searcher);
+        } catch (IOException e) {
+            LOGGER.warn("Could not release service index searcher", e);
         }
     }
 
@@ -64,23 +232,76 @@ public class ServiceMatcher {
 
         if (docs.totalHits.value > 0) {
             Document doc = searcher.doc(docs.scoreDocs[0].doc);
-            return List.of(new ServiceMatch(doc.get("id"), 100.0f, 100.0f, true));
+            if (lexicon.getServices().contains(doc.get("id"))) {
+                return List.of(new ServiceMatch(doc.get("id"), 100.0f, 100.0f, true));
+            }
         }
         return Collections.emptyList();
     }
 
-    private List<ServiceMatch> searchMultiField(IndexSearcher searcher, String userQuery)
-            throws ParseException, IOException {
+    private List<ServiceMatch> searchMultiField(IndexSearcher searcher, String userQuery) throws IOException {
+        Query query = buildQuery(searcher, userQuery);
+        if (query == null) {
+            return Collections.emptyList();
+        }
+        TopDocs docs = searcher.search(query, MAX_RESULTS);
 
-        Map<String, Float> boosts = Map.of("name", NAME_BOOST, "ops", OPS_BOOST);
+        return processResults(searcher, docs);
+    }
 
-        MultiFieldQueryParser parser = new MultiFieldQueryParser(
-                new String[]{"name", "ops"}, analyzer, boosts);
+    /** {@link #buildQuery(IndexSearcher, String)} against the current index. */
+    Query buildQuery(String text) throws IOException {
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            return buildQuery(searcher, text);
+        } finally {
+            release(searcher);
+        }
+    }
 
-        Query query = parser.parse(userQuery);
-        TopDocs docs = searcher.search(query, MAX_RESULTS);
+    /**
+     * One {@code name^3 ops^1.5} pair of boosted term clauses per analyzed token, all optional: for words of
+     * the catalog this scores the same as {@code MultiFieldQueryParser} over both fields did. Any other token
+     * also gets lower boosted prefix and fuzzy clauses. The analyzer reuses its token stream per thread.
+     * Returns {@code null} when the text has no tokens.
+     */
+    Query buildQuery(IndexSearcher searcher, String text) throws IOException {
+        IndexReader reader = searcher.getIndexReader();
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        int clauses = 0;
+        try (TokenStream tokens = analyzer.tokenStream(ServiceIndexBuilder.NAME, text)) {
+            CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+            tokens.reset();
+            while (tokens.incrementToken() && clauses + 6 <= IndexSearcher.getMaxClauseCount()) {
+                String token = term.toString();
+                Term name = new Term(ServiceIndexBuilder.NAME, token);
+                Term ops = new Term(ServiceIndexBuilder.OPS, token);
+                clauses += add(query, new TermQuery(name), NAME_BOOST);
+                clauses += add(query, new TermQuery(ops), OPS_BOOST);
+                if (reader.docFreq(name) > 0 || reader.docFreq(ops) > 0) {
+                    continue;
+                }
+                clauses += add(query, new TermQuery(new Term(ServiceIndexBuilder.NAME_PREFIX, token)), NAME_PREFIX_BOOST);
+                clauses += add(query, new TermQuery(new Term(ServiceIndexBuilder.OPS_PREFIX, token)), OPS_PREFIX_BOOST);
+                int maxEdits = maxEdits(token);
+                if (maxEdits > 0) {
+                    clauses += add(query, new FuzzyQuery(name, maxEdits, 1), NAME_FUZZY_BOOST);
+                    clauses += add(query, new FuzzyQuery(ops, maxEdits, 1), OPS_FUZZY_BOOST);
+                }
+            }
+            tokens.end();
+        }
+        return clauses == 0 ? null : query.build();
+    }
 
-        return processResults(searcher, docs);
+    private static int add(BooleanQuery.Builder query, Query clause, float boost) {
+        query.add(new BoostQuery(clause, boost), BooleanClause.Occur.SHOULD);
+        return 1;
+    }
+
+    /** Same edit allowance as Elasticsearch's {@code fuzziness: AUTO}: none up to 2 characters, 1 up to 5. */
+    private static int maxEdits(String token) {
+        return token.length() <= 2 ? 0 : token.length() <= 5 ? 1 : 2;
     }
 
     private List<ServiceMatch> processResults(IndexSearcher searcher, TopDocs docs) throws IOException {
@@ -93,10 +314,14 @@ public class ServiceMatcher {
                 .max(Float::compare)
                 .orElse(1.0f);
 
+        Set<String> services = lexicon.getServices();
         List<ServiceMatch> matches = new ArrayList<>();
         for (ScoreDoc scoreDoc : docs.scoreDocs) {
             if (scoreDoc.score >= MIN_SCORE_THRESHOLD) {
                 Document doc = searcher.doc(scoreDoc.doc);
+                if (!services.contains(doc.get("id"))) {
+                    continue;
+                }
                 float percentage = (scoreDoc.score / maxScore) * 100.0f;
                 matches.add(new ServiceMatch(doc.get("id"), scoreDoc.score, percentage, false));
             }
@@ -0,0 +1,126 @@
+package com.example.servicechat.service;
+
+import java.util.*;
+
+/**
+ * In-memory symmetric-delete spelling index (SymSpell). Every dictionary word is stored under each string
+ * obtained by deleting up to {@code maxEditDistance} of its characters. A lookup generates the deletes of the
+ * query the same way: any dictionary word within that edit distance shares at least one delete with it, so
+ * candidates are found with hash lookups instead of a search, and only those are checked with a real
+ * Levenshtein distance.
+ * <p>
+ * Suggestions are ranked like Lucene's {@code SpellChecker} with its default {@code LevenshteinDistance}:
+ * similarity {@code 1 - distance / max(length)}, which must reach {@code accuracy}, best first and
+ * alphabetical among equals. Immutable once built.
+ * <p>
+ * The deletes of a query grow quadratically with its length, so a word longer than the longest dictionary
+ * word by more than {@code maxEditDistance} is rejected before any are generated: nothing can be within
+ * reach of it.
+ */
+final class SymSpellIndex {
+
+    private final int maxEditDistance;
+    private final float accuracy;
+    private final Set<String> words;
+    private final int maxWordLength;
+    private final Map<String, String[]> deletes;
+
+    SymSpellIndex(Collection<String> dictionary, int maxEditDistance, float accuracy) {
+        this.maxEditDistance = maxEditDistance;
+        this.accuracy = accuracy;
+        this.words = Set.copyOf(dictionary);
+        this.maxWordLength = words.stream().mapToInt(String::length).max().orElse(0);
+
+        Map<String, List<String>> index = new HashMap<>();
+        for (String word : words) {
+            for (String delete : deletes(word)) {
+                index.computeIfAbsent(delete, key -> new ArrayList<>(2)).add(word);
+            }
+        }
+        Map<String, String[]> compact = new HashMap<>(index.size() * 4 / 3 + 1);
+        index.forEach((delete, candidates) -> compact.put(delete, candidates.toArray(String[]::new)));
+        this.deletes = compact;
+    }
+
+    boolean exist(String word) {
+        return words.contains(word);
+    }
+
+    int size() {
+        return words.size();
+    }
+
+    /** Up to {@code limit} dictionary words similar to {@code word}, best first; never {@code word} itself. */
+    String[] suggestSimilar(String word, int limit) {
+        if (word.length() > maxWordLength + maxEditDistance) {
+            return new String[0];
+        }
+        Set<String> seen = new HashSet<>();
+        List<Suggestion> suggestions = new ArrayList<>();
+        for (String delete : deletes(word)) {
+            String[] candidates = deletes.get(delete);
+            if (candidates == null) {
+                continue;
+            }
+            for (String candidate : candidates) {
+                if (candidate.equals(word) || !seen.add(candidate)) {
+                    continue;
+                }
+                int distance = distance(word, candidate);
+                if (distance > maxEditDistance) {
+                    continue;
+                }
+                float similarity = 1f - (float) distance / Math.max(word.length(), candidate.length());
+                if (similarity >= accuracy) {
+                    suggestions.add(new Suggestion(candidate, similarity));
+                }
+            }
+        }
+        suggestions.sort(Comparator.comparing(Suggestion::similarity).reversed()
+                .thenComparing(Suggestion::word));
+        return suggestions.stream().limit(limit).map(Suggestion::word).toArray(String[]::new);
+    }
+
+    /** The word and every string reachable from it by deleting up to {@code maxEditDistance} characters. */
+    private Set<String> deletes(String word) {
+        Set<String> result = new HashSet<>();
+        result.add(word);
+        List<String> level = List.of(word);
+        for (int d = 0; d < maxEditDistance; d++) {
+            List<String> next = new ArrayList<>();
+            for (String current : level) {
+                for (int i = 0; i < current.length(); i++) {
+                    String delete = current.substring(0, i) + current.substring(i + 1);
+                    if (result.add(delete)) {
+                        next.add(delete);
+                    }
+                }
+            }
+            level = next;
+        }
+        return result;
+    }
+
+    /** Plain Levenshtein distance, as Lucene's {@code LevenshteinDistance} uses. */
+    static int distance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private record Suggestion(String word, float similarity) {
+    }
+}
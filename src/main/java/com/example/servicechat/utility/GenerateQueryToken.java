@@ -1,64 +1,59 @@
 package com.example.servicechat.utility;
 
+import com.example.servicechat.model.NormalizedQuery;
 import com.example.servicechat.model.ServiceMatch;
+import com.example.servicechat.service.ChatStageMetrics;
+import com.example.servicechat.service.QueryResolutionCache;
 import com.example.servicechat.service.QuerySpellCorrector;
-import com.example.servicechat.service.ServiceMatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.lang.invoke.MethodHandles;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Component
 public class GenerateQueryToken {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+    @Autowired
+    private QueryNormalizer queryNormalizer;
     @Autowired
     private QuerySpellCorrector corrector;
     @Autowired
-    private ServiceMatcher serviceMatcher;
-
-    public String stopWords(String query) {
-        List<String> stopWords = dataReadFromFile("stopwords.txt");
-        String refinedQuery = Arrays.stream(query.split("\\s+"))
-                .filter(word -> !stopWords.contains(word.toLowerCase()))
-                .collect(Collectors.joining(" "));
-        LOGGER.info("QueryPostStopWords: {}", refinedQuery);
-        return refinedQuery;
-    }
-
+    private QueryResolutionCache resolutionCache;
+    @Autowired
+    private ChatStageMetrics stageMetrics;
 
-    public String checkSpelling(String query) {
-        String correctQuery = corrector.correctQuery(query);
-        LOGGER.info("QueryPostCheckSpell: {}", correctQuery);
-        return correctQuery;
+    /**
+     * Full query normalization: one pass for case, special characters and stop words, then spelling
+     * correction on the same token array.
+     */
+    public NormalizedQuery normalize(String query) {
+        String[] tokens = stageMetrics.time(ChatStageMetrics.NORMALIZE, query, () -> queryNormalizer.tokenize(query));
+        stageMetrics.time(ChatStageMetrics.SPELL_CORRECTION, tokens, () -> corrector.correct(tokens));
+        NormalizedQuery normalized = new NormalizedQuery(tokens);
+        LOGGER.info("Normalized query: {}", normalized);
+        return normalized;
     }
 
-    private List<String> dataReadFromFile(String fileName) {
-        InputStream inputStream = getClass().getClassLoader().getResourceAsStream(fileName);
-        return new BufferedReader(
-                new InputStreamReader(inputStream)).lines().toList();
+    public String preprocess(String query) {
+        return normalize(query).getText();
     }
 
-    public String removeSpecialCharacter(String query) {
-
-        String queryPostRemoveSpecialChar = query.replaceAll("[^a-zA-Z0-9\\s]", " ");
-        String cleanedQuery= queryPostRemoveSpecialChar.trim().replaceAll("\\s+", " ").trim();
-        LOGGER.info("QueryPostRemoveSpecialChar: {}", cleanedQuery);
-        return cleanedQuery;
+    public List<String> getSuggestedServices(String query) {
+        return getServiceMatches(query).stream()
+                .map(ServiceMatch::getServiceId)
+                .toList();
     }
 
-    public List<String> getSuggestedServices(String query) {
-        List<ServiceMatch> matchingServices = serviceMatcher.findMatchingServices(query);
+    /** Services matching the normalized query, best first, with their scores. */
+    public List<ServiceMatch> getServiceMatches(String query) {
+        List<ServiceMatch> matchingServices = query == null || query.isBlank() ? List.of()
+                : stageMetrics.time(ChatStageMetrics.SERVICE_SEARCH, query, () -> resolutionCache.findServices(query));
+        stageMetrics.traceServiceMatches(matchingServices);
         LOGGER.info("Matching Services:");
         for (int i = 0; i < matchingServices.size(); i++) {
             ServiceMatch match = matchingServices.get(i);
@@ -72,11 +67,6 @@ public class GenerateQueryToken {
             ));
         }
 
-        return matchingServices.isEmpty()
-                ? Collections.emptyList()
-                : matchingServices.stream()
-                .map(ServiceMatch::getServiceId)
-                .toList();
-
+        return matchingServices;
     }
 }
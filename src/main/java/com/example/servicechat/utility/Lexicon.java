@@ -0,0 +1,275 @@
+package com.example.servicechat.utility;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * All word lists the chat reads, built once into immutable hash sets: stop words, the spelling dictionary,
+ * environments, scan types and the service catalog. Every "is this word X" check is a single set lookup.
+ * <p>
+ * Sources are {@code stopwords.txt}, {@code dictionary.txt}, {@code service-operation.json} and
+ * {@code lexicon.json} on the classpath. When {@code chat.lexicon.dir} is set, files found there take
+ * precedence and the directory is watched: a change rebuilds the whole lexicon and publishes a
+ * {@link ReloadedEvent} so that structures derived from it can rebuild too. A source that fails to load
+ * leaves the previous lexicon in place.
+ */
+@Component
+public class Lexicon {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    public static final String STOP_WORDS_FILE = "stopwords.txt";
+    public static final String DICTIONARY_FILE = "dictionary.txt";
+    public static final String CATALOG_FILE = "service-operation.json";
+    public static final String LEXICON_FILE = "lexicon.json";
+    private static final Set<String> SOURCES = Set.of(STOP_WORDS_FILE, DICTIONARY_FILE, CATALOG_FILE, LEXICON_FILE);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final ApplicationEventPublisher events;
+    private final Path overrideDir;
+    private volatile Entries entries;
+    private WatchService watchService;
+
+    private record Entries(long version,
+                           Set<String> stopWords,
+                           Set<String> dictionary,
+                           Set<String> environments,
+                           Set<String> scanTypes,
+                           Map<String, List<String>> operations,
+                           Set<String> catalogWords,
+                           List<String> environmentOrder) {
+    }
+
+    public Lexicon(ApplicationEventPublisher events, @Value("${chat.lexicon.dir:}") String overrideDir) {
+        this.events = events;
+        this.overrideDir = overrideDir.isBlank() ? null : Paths.get(overrideDir);
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        entries = load(1);
+        LOGGER.info("Lexicon loaded: {} stop words, {} dictionary words, {} services, {} catalog words",
+                entries.stopWords().size(), entries.dictionary().size(), entries.operations().size(),
+                entries.catalogWords().size());
+        if (overrideDir != null) {
+            watch();
+        }
+    }
+
+    /** Rebuilds the lexicon from its sources; keeps the current one if a source cannot be read. */
+    public synchronized void reload() {
+        Entries reloaded;
+        try {
+            reloaded = load(entries.version() + 1);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Lexicon reload failed, keeping version {}", entries.version(), e);
+            return;
+        }
+        entries = reloaded;
+        LOGGER.info("Lexicon reloaded, version {}", reloaded.version());
+        events.publishEvent(new ReloadedEvent(reloaded.version()));
+    }
+
+    public long getVersion() {
+        return entries.version();
+    }
+
+    public boolean isStopWord(String word) {
+        return entries.stopWords().contains(word);
+    }
+
+    public boolean isEnvironment(String word) {
+        return entries.environments().contains(word);
+    }
+
+    /** Whether the word is spelled as the chat expects it, so it must not be spell corrected. */
+    public boolean isKnownWord(String word) {
+        Entries current = entries;
+        return current.dictionary().contains(word) || current.catalogWords().contains(word)
+                || current.environments().contains(word) || current.scanTypes().contains(word);
+    }
+
+    /** Environments in the order they are offered to the user. */
+    public List<String> getEnvironments() {
+        return entries.environmentOrder();
+    }
+
+    /** Operations by service name, as in {@code service-operation.json}. */
+    public Map<String, List<String>> getCatalog() {
+        return entries.operations();
+    }
+
+    public Set<String> getServices() {
+        return entries.operations().keySet();
+    }
+
+    public List<String> getOperations(String service) {
+        return entries.operations().getOrDefault(service, List.of());
+    }
+
+    public Set<String> getDictionary() {
+        return entries.dictionary();
+    }
+
+    public Set<String> getCatalogWords() {
+        return entries.catalogWords();
+    }
+
+    /**
+     * Finds a scan type in free text, either as one word or as two adjacent words written apart
+     * ("black duck" for {@code blackduck}).
+     */
+    public Optional<String> findScanType(String text) {
+        if (text == null) {
+            return Optional.empty();
+        }
+        Set<String> scanTypes = entries.scanTypes();
+        String previous = null;
+        for (String word : text.toLowerCase().split("[^a-z0-9]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (scanTypes.contains(word)) {
+                return Optional.of(word);
+            }
+            if (previous != null && scanTypes.contains(previous + word)) {
+                return Optional.of(previous + word);
+            }
+            previous = word;
+        }
+        return Optional.empty();
+    }
+
+    private Entries load(long version) throws IOException {
+        Set<String> stopWords = new HashSet<>();
+        readLines(STOP_WORDS_FILE).forEach(word -> stopWords.add(word.toLowerCase()));
+        Set<String> dictionary = new HashSet<>();
+        readLines(DICTIONARY_FILE).forEach(word -> dictionary.add(word.toLowerCase()));
+
+        Map<String, List<String>> lexicon = readJson(LEXICON_FILE);
+        List<String> environments = lexicon.getOrDefault("environments", List.of()).stream()
+                .map(String::toLowerCase).toList();
+        Set<String> scanTypes = new HashSet<>();
+        lexicon.getOrDefault("scanTypes", List.of()).forEach(scanType -> scanTypes.add(scanType.toLowerCase()));
+
+        Map<String, List<String>> operations = new HashMap<>();
+        Set<String> catalogWords = new HashSet<>();
+        for (Map.Entry<String, List<String>> service : readJson(CATALOG_FILE).entrySet()) {
+            operations.put(service.getKey(), List.copyOf(service.getValue()));
+            addWords(catalogWords, service.getKey());
+            service.getValue().forEach(operation -> addWords(catalogWords, operation));
+        }
+
+        return new Entries(version, Set.copyOf(stopWords), Set.copyOf(dictionary), Set.copyOf(environments),
+                Set.copyOf(scanTypes), Map.copyOf(operations), Set.copyOf(catalogWords), environments);
+    }
+
+    /** Adds the lowercased word plus its parts split at dashes and camel case ("initRedeem" -> init, redeem). */
+    private static void addWords(Set<String> words, String text) {
+        for (String word : text.split("[-\\s_]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            words.add(word.toLowerCase());
+            for (String part : word.split("(?<=[a-z])(?=[A-Z])")) {
+                words.add(part.toLowerCase());
+            }
+        }
+    }
+
+    private InputStream open(String fileName) throws IOException {
+        if (overrideDir != null && Files.isRegularFile(overrideDir.resolve(fileName))) {
+            return Files.newInputStream(overrideDir.resolve(fileName));
+        }
+        InputStream inputStream = getClass().getClassLoader().getResourceAsStream(fileName);
+        if (inputStream == null) {
+            throw new IOException(fileName + " not found");
+        }
+        return inputStream;
+    }
+
+    private List<String> readLines(String fileName) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(open(fileName), StandardCharsets.UTF_8))) {
+            return reader.lines().map(String::trim).filter(line -> !line.isEmpty()).toList();
+        }
+    }
+
+    private Map<String, List<String>> readJson(String fileName) throws IOException {
+        try (InputStream input = open(fileName)) {
+            return OBJECT_MAPPER.readValue(input, new TypeReference<>() {
+            });
+        }
+    }
+
+    private void watch() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        overrideDir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        Thread watcher = new Thread(this::watchLoop, "lexicon-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        LOGGER.info("Watching {} for lexicon changes", overrideDir);
+    }
+
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = touchesSource(key);
+                key.reset();
+                if (changed) {
+                    // Editors often write a file in several steps; let them finish before reading it
+                    Thread.sleep(200);
+                    for (WatchKey pending; (pending = watchService.poll()) != null; ) {
+                        pending.pollEvents();
+                        pending.reset();
+                    }
+                    reload();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // shutting down
+        }
+    }
+
+    private static boolean touchesSource(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || event.context() instanceof Path file && SOURCES.contains(file.getFileName().toString())) {
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    /** Published after a successful reload. */
+    public record ReloadedEvent(long version) {
+    }
+}
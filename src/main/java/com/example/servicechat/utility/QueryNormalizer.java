@@ -0,0 +1,46 @@
+package com.example.servicechat.utility;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Single pass over the characters of a query: ASCII letters are lowercased, letters and digits form words,
+ * anything else separates words, and stop words are dropped as each word ends. Produces the same tokens as
+ * the former special-character, stop-word and lowercase steps without the intermediate strings.
+ */
+@Component
+public class QueryNormalizer {
+
+    @Autowired
+    private Lexicon lexicon;
+
+    /** Returns the query's tokens, before spelling correction. */
+    public String[] tokenize(String query) {
+        String[] tokens = new String[8];
+        int size = 0;
+        char[] word = new char[query.length()];
+        int length = 0;
+        for (int i = 0; i <= query.length(); i++) {
+            char ch = i < query.length() ? query.charAt(i) : ' ';
+            if (ch >= 'A' && ch <= 'Z') {
+                ch = (char) (ch + ('a' - 'A'));
+            }
+            if ((ch >= 'a' && ch <= 'z') || (ch >= '0' && ch <= '9')) {
+                word[length++] = ch;
+            } else if (length > 0) {
+                String token = new String(word, 0, length);
+                length = 0;
+                if (lexicon.isStopWord(token)) {
+                    continue;
+                }
+                if (size == tokens.length) {
+                    tokens = Arrays.copyOf(tokens, size * 2);
+                }
+                tokens[size++] = token;
+            }
+        }
+        return size == tokens.length ? tokens : Arrays.copyOf(tokens, size);
+    }
+}
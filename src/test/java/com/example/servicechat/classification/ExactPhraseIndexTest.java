@@ -0,0 +1,48 @@
+package com.example.servicechat.classification;
+
+import com.example.servicechat.utility.GenerateQueryToken;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ExactPhraseIndexTest {
+
+    @Autowired
+    private ExactPhraseIndex exactPhrases;
+    @Autowired
+    private GenerateQueryToken queryTokenUtil;
+
+    @Test
+    void everyTrainingPhraseTypedAsIsHitsItsIntent() throws Exception {
+        Instances training = TrainingCorpus.fromClasspath().toInstances();
+        Map<String, Set<String>> intentsByText = new HashMap<>();
+        Map<String, String> intentByPhrase = new HashMap<>();
+        for (Instance row : training) {
+            String phrase = row.stringValue(0);
+            String text = queryTokenUtil.normalize(phrase).getText();
+            if (!text.isEmpty()) {
+                intentsByText.computeIfAbsent(text, t -> new HashSet<>()).add(row.stringValue(training.classIndex()));
+                intentByPhrase.put(phrase, row.stringValue(training.classIndex()));
+            }
+        }
+        assertThat(intentByPhrase).isNotEmpty();
+        intentByPhrase.forEach((phrase, intent) -> {
+            // A phrase sharing its normalized text with another intent's phrase is left to the model
+            boolean ambiguous = intentsByText.get(queryTokenUtil.normalize(phrase).getText()).size() > 1;
+            assertThat(exactPhrases.lookup(queryTokenUtil.normalize(phrase)))
+                    .as(phrase)
+                    .isEqualTo(ambiguous ? Optional.empty() : Optional.of(intent));
+        });
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.servicechat.classification;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import weka.core.Instances;
+import weka.core.SparseInstance;
+import weka.core.Utils;
+import weka.core.converters.ConverterUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class NaiveBayesScorerTest {
+
+    private static IntentModelSnapshot model;
+    private static List<String> corpus;
+
+    @BeforeAll
+    static void trainModel() throws Exception {
+        QueryClassifier classifier = new QueryClassifier();
+        classifier.init();
+        model = classifier.getSnapshot();
+
+        Instances training = new ConverterUtils.DataSource("training.arff").getDataSet();
+        corpus = new ArrayList<>();
+        for (int i = 0; i < training.numInstances(); i++) {
+            corpus.add(training.instance(i).stringValue(0));
+        }
+    }
+
+    @Test
+    void predictsSameLabelsAsWekaOnTrainingCorpus() throws Exception {
+        for (String text : corpus) {
+            assertSameLabel(text);
+        }
+    }
+
+    @Test
+    void predictsSameLabelsAsWekaForRepeatedAndUnknownTerms() throws Exception {
+        for (String text : corpus) {
+            assertSameLabel(text + " " + text);
+            assertSameLabel(text.split(" ")[0]);
+            assertSameLabel(text + " unknownterm");
+        }
+        assertSameLabel("");
+    }
+
+    @Test
+    void probabilitiesMatchWekaDistribution() throws Exception {
+        NaiveBayesScorer scorer = model.getScorer();
+        QueryVectorizer vectorizer = model.getVectorizer();
+        for (String text : corpus) {
+            String[] tokens = vectorizer.tokenize(text);
+            int[] termIds = new int[tokens.length];
+            double[] values = new double[tokens.length];
+            double[] scores = new double[scorer.numClasses()];
+            scorer.logScores(termIds, values, vectorizer.vectorize(tokens, termIds, values), scores);
+            scorer.normalize(scores);
+
+            double[] expected = model.getClassifier().distributionForInstance(toInstance(vectorizer, tokens));
+            for (int c = 0; c < expected.length; c++) {
+                assertThat(scores[c]).as("P(%s | %s)", scorer.classLabel(c), text).isCloseTo(expected[c], within(1e-4));
+            }
+        }
+    }
+
+    @Test
+    void compiledArtifactScoresLikeTrainedModel(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve(IntentModelArtifact.FILE_NAME);
+        IntentModelArtifact.write(file, "test", model.getVectorizer(), model.getScorer());
+        IntentModelArtifact artifact = IntentModelArtifact.map(file);
+
+        assertThat(artifact.getFingerprint()).isEqualTo("test");
+        assertThat(artifact.getVectorizer().getTerms()).isEqualTo(model.getVocabulary());
+        for (String text : corpus) {
+            assertThat(scores(artifact.getVectorizer(), artifact.getScorer(), text)).as(text)
+                    .containsExactly(scores(model.getVectorizer(), model.getScorer(), text), within(1e-9));
+        }
+    }
+
+    private static double[] scores(QueryVectorizer vectorizer, NaiveBayesScorer scorer, String text) {
+        String[] tokens = vectorizer.tokenize(text);
+        int[] termIds = new int[tokens.length];
+        double[] values = new double[tokens.length];
+        double[] scores = new double[scorer.numClasses()];
+        scorer.logScores(termIds, values, vectorizer.vectorize(tokens, termIds, values), scores);
+        return scores;
+    }
+
+    private void assertSameLabel(String text) throws Exception {
+        QueryVectorizer vectorizer = model.getVectorizer();
+        NaiveBayesScorer scorer = model.getScorer();
+        String[] tokens = vectorizer.tokenize(text);
+
+        SparseInstance instance = toInstance(vectorizer, tokens);
+        int expected = (int) model.getClassifier().classifyInstance(instance);
+
+        int[] termIds = new int[tokens.length];
+        double[] values = new double[tokens.length];
+        int size = vectorizer.vectorize(tokens, termIds, values);
+        int actual = scorer.predict(termIds, values, size, new double[scorer.numClasses()]);
+
+        assertThat(scorer.classLabel(actual)).as("label for '%s'", text)
+                .isEqualTo(model.getFilteredHeader().classAttribute().value(expected));
+    }
+
+    /**
+     * The Weka instance for the word vector the scorer sees, with the class value missing, so the Weka
+     * classifier can be run on exactly the same input.
+     */
+    private static SparseInstance toInstance(QueryVectorizer vectorizer, String[] tokens) {
+        int[] termIds = new int[tokens.length];
+        double[] termValues = new double[tokens.length];
+        int termCount = vectorizer.vectorize(tokens, termIds, termValues);
+
+        Instances header = vectorizer.getHeader();
+        int classIndex = header.classIndex();
+        int[] indices = new int[termCount + 1];
+        double[] values = new double[termCount + 1];
+        int size = 0;
+        boolean classAdded = classIndex < 0;
+        for (int i = 0; i < termCount; i++) {
+            if (!classAdded && classIndex < termIds[i]) {
+                indices[size] = classIndex;
+                values[size++] = Utils.missingValue();
+                classAdded = true;
+            }
+            indices[size] = termIds[i];
+            values[size++] = termValues[i];
+        }
+        if (!classAdded) {
+            indices[size] = classIndex;
+            values[size++] = Utils.missingValue();
+        }
+
+        SparseInstance instance = new SparseInstance(1.0, Arrays.copyOf(values, size),
+                Arrays.copyOf(indices, size), header.numAttributes());
+        instance.setDataset(header);
+        return instance;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.servicechat.classification;
+
+import com.example.servicechat.model.TrainingExample;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class OnlineLearningTest {
+
+    private static final List<TrainingExample> EXAMPLES = List.of(
+            new TrainingExample("get_log", "fetch splunk logs for payment service"),
+            new TrainingExample("get_log", "logs logs logs error"),
+            new TrainingExample("get_postman", "share the postman collection quickly"),
+            new TrainingExample("get_client_info", "who is the owner client of this api"));
+
+    @Test
+    void learnedModelMatchesFullRetrain(@TempDir Path dir) throws Exception {
+        QueryClassifier online = new QueryClassifier();
+        online.init();
+        IntentModelSnapshot learned = online.learn(EXAMPLES);
+
+        try (InputStream arff = getClass().getClassLoader().getResourceAsStream(TrainingCorpus.ARFF_FILE)) {
+            Files.copy(arff, dir.resolve(TrainingCorpus.ARFF_FILE));
+        }
+        List<String> lines = EXAMPLES.stream().map(e -> e.getIntent() + "\t" + e.getText()).toList();
+        Files.write(dir.resolve(TrainingCorpus.TEXT_FILE), lines);
+        TrainingCorpus corpus = TrainingCorpus.fromDirectory(dir);
+        IntentModelSnapshot retrained = new QueryClassifier().train(corpus, 1);
+
+        assertThat(learned.getVocabulary()).isEqualTo(retrained.getVocabulary());
+        List<String> texts = new ArrayList<>();
+        Instances rows = corpus.toInstances();
+        for (Instance row : rows) {
+            texts.add(row.stringValue(0));
+        }
+        texts.add("payment splunk owner");
+        for (String text : texts) {
+            double[] expected = probabilities(retrained, text);
+            double[] actual = probabilities(learned, text);
+            for (int c = 0; c < expected.length; c++) {
+                assertThat(actual[c]).as("P(%s | %s)", learned.getScorer().classLabel(c), text)
+                        .isCloseTo(expected[c], within(1e-4));
+            }
+        }
+    }
+
+    @Test
+    void rejectsUnknownIntentWithoutChangingModel() {
+        QueryClassifier online = new QueryClassifier();
+        online.init();
+        IntentModelSnapshot before = online.getSnapshot();
+
+        assertThatThrownBy(() -> online.learn(List.of(new TrainingExample("no_such_intent", "hello"))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(online.getSnapshot()).isSameAs(before);
+    }
+
+    private static double[] probabilities(IntentModelSnapshot model, String text) {
+        QueryVectorizer vectorizer = model.getVectorizer();
+        NaiveBayesScorer scorer = model.getScorer();
+        String[] tokens = vectorizer.tokenize(text);
+        int[] termIds = new int[tokens.length];
+        double[] values = new double[tokens.length];
+        double[] scores = new double[scorer.numClasses()];
+        scorer.logScores(termIds, values, vectorizer.vectorize(tokens, termIds, values), scores);
+        scorer.normalize(scores);
+        return scores;
+    }
+}
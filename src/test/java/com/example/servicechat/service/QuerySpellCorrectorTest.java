@@ -0,0 +1,84 @@
+package com.example.servicechat.service;
+
+import com.example.servicechat.utility.Lexicon;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class QuerySpellCorrectorTest {
+
+    private static QuerySpellCorrector corrector;
+
+    @BeforeAll
+    static void build() throws Exception {
+        Lexicon lexicon = new Lexicon(event -> {
+        }, "");
+        lexicon.init();
+        corrector = new QuerySpellCorrector(lexicon, 2, 0.7f);
+        corrector.init();
+    }
+
+    @Test
+    void passesIdentifiersThrough() {
+        // 550e8400-e29b-41d4-a716-446655440000 after normalization
+        String[] tokens = {"550e8400", "e29b", "41d4", "a716", "446655440000", "deadbeef", "2024"};
+        String[] original = tokens.clone();
+        corrector.correct(tokens);
+        assertThat(tokens).containsExactly(original);
+    }
+
+    @Test
+    void keepsCatalogWordsAndCorrectsTowardsThem() {
+        String[] tokens = {"initredeem", "tgs", "cuv", "accountdetail", "redemtion", "logz"};
+        corrector.correct(tokens);
+        assertThat(tokens).containsExactly("initredeem", "tgs", "cuv", "accountdetail", "redemption", "logs");
+    }
+
+    @Test
+    void recognizesIdentifiers() {
+        assertThat(QuerySpellCorrector.isIdentifier("a716")).isTrue();
+        assertThat(QuerySpellCorrector.isIdentifier("12")).isTrue();
+        assertThat(QuerySpellCorrector.isIdentifier("deadbeef")).isTrue();
+        assertThat(QuerySpellCorrector.isIdentifier("facade")).isFalse();
+        assertThat(QuerySpellCorrector.isIdentifier("postman")).isFalse();
+    }
+
+    @Test
+    void rebuildsOnlyWhenTheWordsChange(@TempDir Path dir) throws Exception {
+        AtomicReference<QuerySpellCorrector> listener = new AtomicReference<>();
+        Lexicon lexicon = new Lexicon(event -> listener.get().onLexiconReloaded(null), dir.toString());
+        lexicon.init();
+        QuerySpellCorrector reloading = new QuerySpellCorrector(lexicon, 2, 0.7f);
+        listener.set(reloading);
+        reloading.init();
+        String before = reloading.getChecksum();
+        assertThat(reloading.correctWord("splnk")).isEqualTo("splnk");
+
+        Files.writeString(dir.resolve(Lexicon.STOP_WORDS_FILE), "a\nthe\n");
+        lexicon.reload();
+        assertThat(reloading.getChecksum()).isEqualTo(before);
+
+        Files.writeString(dir.resolve(Lexicon.DICTIONARY_FILE), "splunk\nlogs\n");
+        lexicon.reload();
+        assertThat(reloading.getChecksum()).isNotEqualTo(before);
+        assertThat(reloading.correctWord("splnk")).isEqualTo("splunk");
+        assertThat(reloading.correctWord("paymnt")).isEqualTo("paymnt");
+        assertThat(reloading.correctWord("redem")).isEqualTo("redeem");     // catalog words stay
+    }
+
+    @Test
+    void passesOverlongTokensThroughWithoutGeneratingDeletes() {
+        String[] tokens = {"logz".repeat(250)};
+        String[] original = tokens.clone();
+        assertTimeoutPreemptively(Duration.ofMillis(500), () -> corrector.correct(tokens));
+        assertThat(tokens).containsExactly(original);
+    }
+}
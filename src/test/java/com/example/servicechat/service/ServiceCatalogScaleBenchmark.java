@@ -0,0 +1,171 @@
+package com.example.servicechat.service;
+
+import com.example.servicechat.utility.Lexicon;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Service matching over synthetic catalogs of 1k to 100k services, each built into a persistent
+ * {@link ServiceMatcher} index as in production. Queries mix whole names, partly typed and misspelled names
+ * and operation words. Sample mode reports the p50/p99 match latency; the heap retained by the lexicon and
+ * by the index, the build time and the time to reopen the existing index are printed during setup. Run with
+ * {@code -Dbenchmark=ServiceCatalogScale}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ServiceCatalogScaleBenchmark {
+
+    private static final String[] DOMAINS = {
+            "rewards", "payments", "ledger", "billing", "wallet", "loyalty", "partner", "card", "loan", "fraud",
+            "identity", "onboarding", "statement", "transfer", "merchant", "offer", "catalog", "pricing", "tax",
+            "refund", "dispute", "notification", "consent", "profile", "address", "device", "session", "audit",
+            "reporting", "settlement", "clearing", "treasury", "forex", "invoice", "subscription", "shipping",
+            "inventory", "search", "document", "kyc"};
+    private static final String[] ENTITIES = {
+            "account", "order", "balance", "customer", "transaction", "redemption", "points", "voucher", "coupon",
+            "limit", "schedule", "mandate", "beneficiary", "channel", "event", "batch", "file", "rule", "score",
+            "alert", "case", "token", "key", "certificate", "quote", "contract", "product", "plan", "tier",
+            "campaign", "segment", "report", "export", "import", "ledger", "journal", "entry", "posting",
+            "reconciliation", "snapshot", "history", "preference", "contact", "message", "template", "workflow",
+            "approval", "review", "request", "response"};
+    private static final String[] QUALIFIERS = {
+            "api", "service", "gateway", "adapter", "processor", "engine", "store", "cache", "sync", "worker",
+            "scheduler", "publisher", "consumer", "listener", "bridge", "proxy", "router", "validator", "enricher",
+            "aggregator", "resolver", "manager", "registry", "indexer", "exporter", "importer", "calculator",
+            "evaluator", "notifier", "tracker", "monitor", "collector", "builder", "mapper", "transformer",
+            "dispatcher", "handler", "orchestrator", "coordinator", "allocator", "checker", "generator", "loader",
+            "writer", "reader", "query", "command", "batch", "stream", "online", "offline", "core", "edge",
+            "legacy", "v2"};
+    private static final String[] VERBS = {"get", "create", "update", "cancel", "list", "refund", "redeem", "export"};
+    private static final String[] NOUNS = {"Order", "Balance", "Detail", "Summary", "History", "Status", "Report"};
+
+    @Param({"1000", "10000", "100000"})
+    public int catalogSize;
+
+    @Param({"1", "0"})
+    public int searchThreads;
+
+    private Path workDir;
+    private Lexicon lexicon;
+    private ServiceMatcher matcher;
+    private String[] queries;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        Random random = new Random(42);
+        Map<String, List<String>> catalog = generateCatalog(random);
+        workDir = Files.createTempDirectory("service-catalog-benchmark");
+        Path lexiconDir = Files.createDirectory(workDir.resolve("lexicon"));
+        Path indexDir = workDir.resolve("index");
+        new ObjectMapper().writeValue(lexiconDir.resolve(Lexicon.CATALOG_FILE).toFile(), catalog);
+
+        long heap = usedHeap();
+        lexicon = new Lexicon(event -> {
+        }, lexiconDir.toString());
+        lexicon.init();
+        long lexiconHeap = usedHeap() - heap;
+
+        long start = System.nanoTime();
+        ServiceMatcher first = open(indexDir);
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+        first.close();
+
+        heap = usedHeap();
+        start = System.nanoTime();
+        matcher = open(indexDir);
+        long reopenMillis = (System.nanoTime() - start) / 1_000_000;
+        long indexHeap = usedHeap() - heap;
+
+        queries = generateQueries(catalog, random);
+        System.out.printf("%n%d services: lexicon %d KB heap, index %d KB heap, built in %d ms, reopened in %d ms%n",
+                catalogSize, lexiconHeap / 1024, indexHeap / 1024, buildMillis, reopenMillis);
+    }
+
+    private ServiceMatcher open(Path indexDir) throws Exception {
+        ServiceMatcher opened = new ServiceMatcher(new ServiceIndexBuilder(), lexicon, indexDir.toString(), searchThreads);
+        opened.init();
+        return opened;
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        matcher.close();
+        lexicon.shutdown();
+        try (Stream<Path> files = Files.walk(workDir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public Object match() {
+        String query = queries[next++ & (queries.length - 1)];
+        return matcher.findMatchingServices(query);
+    }
+
+    private Map<String, List<String>> generateCatalog(Random random) {
+        List<String> names = new ArrayList<>(DOMAINS.length * ENTITIES.length * QUALIFIERS.length);
+        for (String domain : DOMAINS) {
+            for (String entity : ENTITIES) {
+                for (String qualifier : QUALIFIERS) {
+                    names.add("tgs-" + domain + "-" + entity + "-" + qualifier);
+                }
+            }
+        }
+        Collections.shuffle(names, random);
+        Map<String, List<String>> catalog = new HashMap<>();
+        for (String name : names.subList(0, catalogSize)) {
+            List<String> operations = new ArrayList<>();
+            for (int i = 2 + random.nextInt(3); i > 0; i--) {
+                operations.add(VERBS[random.nextInt(VERBS.length)] + NOUNS[random.nextInt(NOUNS.length)]);
+            }
+            catalog.put(name, operations);
+        }
+        return catalog;
+    }
+
+    /** Whole names, names with the last word cut short, names with a letter dropped and operation words. */
+    private static String[] generateQueries(Map<String, List<String>> catalog, Random random) {
+        List<String> names = new ArrayList<>(catalog.keySet());
+        Collections.sort(names);
+        String[] queries = new String[256];
+        for (int i = 0; i < queries.length; i++) {
+            String name = names.get(random.nextInt(names.size()));
+            String[] words = name.split("-");
+            switch (i % 4) {
+                case 0 -> queries[i] = String.join(" ", words);
+                case 1 -> {
+                    String last = words[words.length - 1];
+                    words[words.length - 1] = last.substring(0, Math.min(last.length(), 4));
+                    queries[i] = String.join(" ", words);
+                }
+                case 2 -> {
+                    String entity = words[2];
+                    int drop = random.nextInt(entity.length());
+                    words[2] = entity.substring(0, drop) + entity.substring(drop + 1);
+                    queries[i] = String.join(" ", words);
+                }
+                default -> queries[i] = words[1] + " " + catalog.get(name).get(0)
+                        .replaceAll("(?<=[a-z])(?=[A-Z])", " ").toLowerCase();
+            }
+        }
+        return queries;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.servicechat.service;
+
+import com.example.servicechat.model.ServiceMatch;
+import com.example.servicechat.utility.Lexicon;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ServiceMatcherTest {
+
+    private static ServiceMatcher matcher;
+    private static Directory directory;
+    private static DirectoryReader reader;
+
+    @BeforeAll
+    static void build() throws Exception {
+        Lexicon lexicon = new Lexicon(event -> {
+        }, "");
+        lexicon.init();
+        matcher = new ServiceMatcher(new ServiceIndexBuilder(), lexicon, "", 1);
+        matcher.init();
+        directory = new ByteBuffersDirectory();
+        ServiceIndexBuilder builder = new ServiceIndexBuilder();
+        try (IndexWriter writer = builder.openWriter(directory)) {
+            builder.applyChanges(writer, Map.of(), lexicon.getCatalog());
+            builder.commit(writer);
+        }
+        reader = DirectoryReader.open(directory);
+    }
+
+    @AfterAll
+    static void close() throws Exception {
+        reader.close();
+        directory.close();
+        matcher.close();
+    }
+
+    @Test
+    void builtQueryScoresLikeMultiFieldQueryParser() throws Exception {
+        MultiFieldQueryParser parser = new MultiFieldQueryParser(new String[]{"name", "ops"}, new StandardAnalyzer(),
+                Map.of("name", 3.0f, "ops", 1.5f));
+        IndexSearcher searcher = new IndexSearcher(reader);
+        for (String text : new String[]{"rewards order", "tgs cuv rewards redemption account", "wallet balance",
+                "redeem redeem order", "tgs-cuv-partner-rewards summary", "refundorder"}) {
+            TopDocs expected = searcher.search(parser.parse(text), 10);
+            TopDocs actual = searcher.search(matcher.buildQuery(searcher, text), 10);
+            assertThat(actual.scoreDocs).as(text).hasSameSizeAs(expected.scoreDocs);
+            for (int i = 0; i < expected.scoreDocs.length; i++) {
+                ScoreDoc hit = actual.scoreDocs[i];
+                assertThat(hit.doc).as(text).isEqualTo(expected.scoreDocs[i].doc);
+                assertThat(hit.score).as(text).isCloseTo(expected.scoreDocs[i].score, within(1e-5f));
+            }
+        }
+    }
+
+    @Test
+    void partlyTypedAndMisspelledNamesStillMatch() {
+        assertThat(matcher.findMatchingServices("tgs cuv rewards redemption accou"))
+                .first().extracting(ServiceMatch::getServiceId).isEqualTo("tgs-cuv-rewards-redemption-account");
+        assertThat(matcher.findMatchingServices("tgs cuv rewrds redemption account"))
+                .first().extracting(ServiceMatch::getServiceId).isEqualTo("tgs-cuv-rewards-redemption-account");
+        assertThat(matcher.findMatchingServices("get splunk logs")).isEmpty();
+    }
+
+    @Test
+    void catalogChangesAreAppliedToTheOpenIndex(@TempDir Path dir) throws Exception {
+        Path catalog = dir.resolve(Lexicon.CATALOG_FILE);
+        Files.writeString(catalog, """
+                {"tgs-cuv-rewards-order": ["refundOrder"], "tgs-cuv-partner-rewards": ["summary"]}
+                """);
+        Lexicon lexicon = new Lexicon(event -> {
+        }, dir.toString());
+        lexicon.init();
+        ServiceMatcher catalogMatcher = new ServiceMatcher(new ServiceIndexBuilder(), lexicon, "", 1);
+        catalogMatcher.init();
+        try {
+            long version = catalogMatcher.getCatalogVersion();
+            Files.writeString(catalog, """
+                    {"tgs-cuv-rewards-order": ["refundOrder", "cancelOrder"], "tgs-billing-gateway": ["invoice"]}
+                    """);
+            lexicon.reload();
+            catalogMatcher.refresh();
+
+            assertThat(catalogMatcher.getCatalogVersion()).isGreaterThan(version);
+            assertThat(catalogMatcher.findMatchingServices("billing invoice"))
+                    .extracting(ServiceMatch::getServiceId).containsExactly("tgs-billing-gateway");
+            assertThat(catalogMatcher.findMatchingServices("cancel order"))
+                    .extracting(ServiceMatch::getServiceId).containsExactly("tgs-cuv-rewards-order");
+            assertThat(catalogMatcher.findMatchingServices("partner summary")).isEmpty();
+            assertThat(catalogMatcher.findMatchingServices("tgs-cuv-partner-rewards"))
+                    .extracting(ServiceMatch::getServiceId).doesNotContain("tgs-cuv-partner-rewards");
+        } finally {
+            catalogMatcher.close();
+            lexicon.shutdown();
+        }
+    }
+
+    @Test
+    void persistentIndexIsReusedAndCaughtUpAfterRestart(@TempDir Path dir) throws Exception {
+        Path lexiconDir = Files.createDirectory(dir.resolve("lexicon"));
+        Path catalog = lexiconDir.resolve(Lexicon.CATALOG_FILE);
+        Path indexDir = dir.resolve("index");
+        Files.writeString(catalog, """
+                {"tgs-cuv-rewards-order": ["refundOrder"], "tgs-cuv-partner-rewards": ["summary"]}
+                """);
+        restart(lexiconDir, indexDir, null);
+        long generation = commitGeneration(indexDir);
+
+        restart(lexiconDir, indexDir, restarted -> assertThat(restarted.findMatchingServices("partner summary"))
+                .extracting(ServiceMatch::getServiceId).containsExactly("tgs-cuv-partner-rewards"));
+        assertThat(commitGeneration(indexDir)).isEqualTo(generation);
+
+        Files.writeString(catalog, """
+                {"tgs-cuv-rewards-order": ["refundOrder"], "tgs-billing-gateway": ["invoice"]}
+                """);
+        restart(lexiconDir, indexDir, restarted -> {
+            assertThat(restarted.findMatchingServices("billing invoice"))
+                    .extracting(ServiceMatch::getServiceId).containsExactly("tgs-billing-gateway");
+            assertThat(restarted.findMatchingServices("partner summary")).isEmpty();
+        });
+    }
+
+    @Test
+    void indexWrittenWithAnotherSchemaIsRebuilt(@TempDir Path dir) throws Exception {
+        Path lexiconDir = Files.createDirectory(dir.resolve("lexicon"));
+        Path indexDir = dir.resolve("index");
+        Files.writeString(lexiconDir.resolve(Lexicon.CATALOG_FILE), """
+                {"tgs-cuv-partner-rewards": ["summary"]}
+                """);
+        // Same catalog, but without the prefix fields
+        try (Directory directory = FSDirectory.open(indexDir);
+             IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()))) {
+            Document doc = new Document();
+            doc.add(new StringField(ServiceIndexBuilder.ID, "tgs-cuv-partner-rewards", Field.Store.YES));
+            doc.add(new TextField(ServiceIndexBuilder.NAME, "tgs-cuv-partner-rewards", Field.Store.YES));
+            doc.add(new TextField(ServiceIndexBuilder.OPS, "summary", Field.Store.YES));
+            writer.addDocument(doc);
+            writer.setLiveCommitData(Map.of("schema", "1").entrySet());
+            writer.commit();
+        }
+
+        restart(lexiconDir, indexDir, restarted -> assertThat(restarted.findMatchingServices("partn summ"))
+                .extracting(ServiceMatch::getServiceId).containsExactly("tgs-cuv-partner-rewards"));
+    }
+
+    private static long commitGeneration(Path indexDir) throws Exception {
+        try (Directory directory = FSDirectory.open(indexDir)) {
+            return SegmentInfos.readLatestCommit(directory).getGeneration();
+        }
+    }
+
+    private static void restart(Path lexiconDir, Path indexDir, Consumer<ServiceMatcher> check) throws Exception {
+        Lexicon lexicon = new Lexicon(event -> {
+        }, lexiconDir.toString());
+        lexicon.init();
+        ServiceMatcher restarted = new ServiceMatcher(new ServiceIndexBuilder(), lexicon, indexDir.toString(), 1);
+        restarted.init();
+        try {
+            if (check != null) {
+                check.accept(restarted);
+            }
+        } finally {
+            restarted.close();
+            lexicon.shutdown();
+        }
+    }
+
+    @Test
+    void queryTextIsNeverParsedAsSyntax() {
+        assertThat(matcher.findMatchingServices("rewards AND OR ( order \" ~ ^")).isNotEmpty();
+        assertThat(matcher.findMatchingServices("AND")).isEmpty();
+        assertThat(matcher.findMatchingServices("")).isEmpty();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.servicechat.service;
+
+import com.example.servicechat.utility.Lexicon;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the service search query for a normalized user query: a new {@code MultiFieldQueryParser} per
+ * request, as {@link ServiceMatcher} used to, against {@link ServiceMatcher#buildQuery(String)}. Run with
+ * {@code -prof gc} to compare allocation per query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ServiceQueryBenchmark {
+
+    @Param({"rewards order", "show tgs cuv rewards redemption account detail for prod", "tgs cuv rewards redemption accou"})
+    public String text;
+
+    private StandardAnalyzer analyzer;
+    private ServiceMatcher matcher;
+
+    @Setup
+    public void setUp() throws Exception {
+        analyzer = new StandardAnalyzer();
+        Lexicon lexicon = new Lexicon(event -> {
+        }, "");
+        lexicon.init();
+        matcher = new ServiceMatcher(new ServiceIndexBuilder(), lexicon, "", 1);
+        matcher.init();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        matcher.close();
+    }
+
+    @Benchmark
+    public Object parser() throws Exception {
+        MultiFieldQueryParser parser = new MultiFieldQueryParser(new String[]{"name", "ops"}, analyzer,
+                Map.of("name", 3.0f, "ops", 1.5f));
+        return parser.parse(text);
+    }
+
+    @Benchmark
+    public Object builder() throws Exception {
+        return matcher.buildQuery(text);
+    }
+}
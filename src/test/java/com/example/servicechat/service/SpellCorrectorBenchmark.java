@@ -0,0 +1,61 @@
+package com.example.servicechat.service;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.spell.PlainTextDictionary;
+import org.apache.lucene.search.spell.SpellChecker;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Suggestion lookups for a mix of correct and misspelled query words: the Lucene {@code SpellChecker} that
+ * {@link QuerySpellCorrector} used to query against the in-memory {@link SymSpellIndex}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SpellCorrectorBenchmark {
+
+    private static final String[] WORDS = {
+            "logs", "logz", "postmn", "colection", "payment", "redem", "wallet", "acount", "dowload", "servce"};
+
+    private SpellChecker lucene;
+    private SymSpellIndex symSpell;
+
+    @Setup
+    public void setUp() throws Exception {
+        List<String> dictionary = Files.readAllLines(Path.of("src/main/resources/dictionary.txt")).stream()
+                .map(String::trim).filter(w -> !w.isEmpty()).map(String::toLowerCase).distinct().toList();
+        lucene = new SpellChecker(new ByteBuffersDirectory());
+        lucene.setAccuracy(0.7f);
+        lucene.indexDictionary(new PlainTextDictionary(new StringReader(String.join("\n", dictionary))),
+                new IndexWriterConfig(new StandardAnalyzer()), true);
+        symSpell = new SymSpellIndex(dictionary, 2, 0.7f);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        lucene.close();
+    }
+
+    @Benchmark
+    public void lucene(Blackhole blackhole) throws Exception {
+        for (String word : WORDS) {
+            blackhole.consume(lucene.exist(word) ? null : lucene.suggestSimilar(word, 5));
+        }
+    }
+
+    @Benchmark
+    public void symSpell(Blackhole blackhole) {
+        for (String word : WORDS) {
+            blackhole.consume(symSpell.exist(word) ? null : symSpell.suggestSimilar(word, 5));
+        }
+    }
+}
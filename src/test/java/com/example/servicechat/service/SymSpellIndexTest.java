@@ -0,0 +1,82 @@
+package com.example.servicechat.service;
+
+import org.apache.lucene.search.spell.PlainTextDictionary;
+import org.apache.lucene.search.spell.SpellChecker;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SymSpellIndexTest {
+
+    private static List<String> dictionary;
+    private static SpellChecker lucene;
+    private static SymSpellIndex symSpell;
+
+    @BeforeAll
+    static void build() throws Exception {
+        dictionary = Files.readAllLines(Path.of("src/main/resources/dictionary.txt")).stream()
+                .map(String::trim).filter(w -> !w.isEmpty()).map(String::toLowerCase).distinct().toList();
+        lucene = new SpellChecker(new ByteBuffersDirectory());
+        lucene.setAccuracy(0.7f);
+        lucene.indexDictionary(new PlainTextDictionary(new StringReader(String.join("\n", dictionary))),
+                new IndexWriterConfig(new StandardAnalyzer()), true);
+        symSpell = new SymSpellIndex(dictionary, 2, 0.7f);
+    }
+
+    @AfterAll
+    static void close() throws Exception {
+        lucene.close();
+    }
+
+    /**
+     * Single and double edits of every dictionary word. Lucene finds candidates through shared n-grams and
+     * misses some double edits that are within the accuracy; everything it does find must match.
+     */
+    @Test
+    void suggestsLikeLuceneSpellChecker() throws Exception {
+        Set<String> misspellings = new TreeSet<>();
+        for (String word : dictionary) {
+            for (int i = 0; i < word.length(); i++) {
+                misspellings.add(word.substring(0, i) + word.substring(i + 1));
+                misspellings.add(word.substring(0, i) + 'x' + word.substring(i + 1));
+                for (int j = i + 1; j < word.length(); j++) {
+                    misspellings.add(word.substring(0, i) + 'q' + word.substring(i + 1, j) + 'z' + word.substring(j + 1));
+                }
+                if (i + 1 < word.length()) {
+                    misspellings.add(word.substring(0, i) + word.charAt(i + 1) + word.charAt(i) + word.substring(i + 2));
+                }
+            }
+        }
+        for (String word : misspellings) {
+            List<String> expected = Arrays.asList(lucene.suggestSimilar(word, 5));
+            if (!expected.isEmpty()) {
+                assertThat(symSpell.suggestSimilar(word, 5)).as(word).containsExactlyElementsOf(expected);
+            }
+        }
+    }
+
+    @Test
+    void knownWordsAreNotSuggestedForThemselves() {
+        assertThat(symSpell.exist("postman")).isTrue();
+        assertThat(symSpell.suggestSimilar("postman", 5)).doesNotContain("postman");
+        assertThat(symSpell.suggestSimilar("logz", 5)).startsWith("logs");
+    }
+
+    @Test
+    void distanceIsPlainLevenshtein() {
+        assertThat(SymSpellIndex.distance("logs", "logs")).isZero();
+        assertThat(SymSpellIndex.distance("lgos", "logs")).isEqualTo(2);
+        assertThat(SymSpellIndex.distance("postmn", "postman")).isEqualTo(1);
+        assertThat(SymSpellIndex.distance("", "api")).isEqualTo(3);
+    }
+}